@@ -0,0 +1,219 @@
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking facade over a {@link MovieRepository}, usually a {@link MovieDatabaseManager}.
+ * <p>
+ * Every operation runs on a background executor and returns a {@link CompletableFuture},
+ * so callers such as the Swing event dispatch thread never wait on the database.
+ * </p>
+ *
+ * <p><b>Threading:</b></p>
+ * By default each call runs on its own virtual thread when the running JVM provides them
+ * (Java 21 and later); a thread waiting for a pooled connection or a database reply then
+ * costs no OS thread. On older JVMs, or when constructed with an explicit executor, calls
+ * run on a bounded pool of platform threads instead (see {@link #newPlatformExecutor(int)}).
+ *
+ * <p><b>Cancellation and Timeouts:</b></p>
+ * Cancelling a returned future, or letting it exceed its timeout, interrupts the worker.
+ * A call still waiting for a pooled connection gives up at once; a statement already sent
+ * to the server runs to completion, but its result is discarded.
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * AsyncMovieDatabaseManager async = new AsyncMovieDatabaseManager(db);
+ * async.getMovieById(42)
+ *      .thenAccept(m -> SwingUtilities.invokeLater(() -> show(m)));
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class AsyncMovieDatabaseManager implements AutoCloseable {
+
+    /** Default time a call may take before its future fails with a {@link java.util.concurrent.TimeoutException}. */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    /** Number of platform threads used when virtual threads are not available. */
+    public static final int DEFAULT_PLATFORM_THREADS = ConnectionPool.DEFAULT_MAX_SIZE;
+
+    private final MovieRepository db;
+    private final ExecutorService executor;
+    private final long defaultTimeoutMillis;
+
+    // ==================== CONSTRUCTORS ====================
+
+    /**
+     * Creates a facade that runs calls on virtual threads if available, with the default timeout.
+     *
+     * @param db the repository performing the actual work
+     */
+    public AsyncMovieDatabaseManager(MovieRepository db) {
+        this(db, newDefaultExecutor(), DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a facade that runs calls on the given executor.
+     * <p>
+     * The executor is owned by the facade and shut down by {@link #close()}.
+     * </p>
+     *
+     * @param db                   the repository performing the actual work
+     * @param executor             the executor running each call
+     * @param defaultTimeoutMillis timeout applied to calls that do not specify one; {@code 0} disables it
+     */
+    public AsyncMovieDatabaseManager(MovieRepository db, ExecutorService executor, long defaultTimeoutMillis) {
+        this.db = db;
+        this.executor = executor;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor when the JVM supports it (Java 21+),
+     * otherwise a platform pool of {@link #DEFAULT_PLATFORM_THREADS} threads.
+     *
+     * @return a new executor for database calls
+     */
+    public static ExecutorService newDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return newPlatformExecutor(DEFAULT_PLATFORM_THREADS);
+        }
+    }
+
+    /**
+     * Creates a fixed pool of daemon platform threads for database calls.
+     * <p>
+     * Sizing it to the connection pool avoids threads that only wait for a connection.
+     * </p>
+     *
+     * @param threads the number of worker threads (at least 1)
+     * @return a new executor for database calls
+     */
+    public static ExecutorService newPlatformExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "movie-db-async-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ==================== CRUD OPERATIONS ====================
+
+    /** @return a future for {@link MovieRepository#getAllMovies()} */
+    public CompletableFuture<ArrayList<Movie>> getAllMovies() {
+        return submit(MovieRepository::getAllMovies);
+    }
+
+    /**
+     * @param id the unique identifier of the movie
+     * @return a future for {@link MovieRepository#getMovieById(int)}
+     */
+    public CompletableFuture<Movie> getMovieById(int id) {
+        return submit(db -> db.getMovieById(id));
+    }
+
+    /**
+     * @param m the movie to insert
+     * @return a future for {@link MovieRepository#addMovie(Movie)}
+     */
+    public CompletableFuture<Movie> addMovie(Movie m) {
+        return submit(db -> db.addMovie(m));
+    }
+
+    /**
+     * @param m the movie containing updated information
+     * @return a future that completes when {@link MovieRepository#updateMovie(Movie)} has returned
+     */
+    public CompletableFuture<Void> updateMovie(Movie m) {
+        return submit(db -> {
+            db.updateMovie(m);
+            return null;
+        });
+    }
+
+    /**
+     * @param id the unique identifier of the movie to delete
+     * @return a future that completes when {@link MovieRepository#deleteMovie(int)} has returned
+     */
+    public CompletableFuture<Void> deleteMovie(int id) {
+        return submit(db -> {
+            db.deleteMovie(id);
+            return null;
+        });
+    }
+
+    // ==================== GENERIC SUBMISSION ====================
+
+    /**
+     * Runs any operation of the repository in the background with the default timeout.
+     *
+     * @param operation the operation to run
+     * @param <T>       the result type
+     * @return a future for the operation's result
+     */
+    public <T> CompletableFuture<T> submit(Function<MovieRepository, T> operation) {
+        return submit(operation, defaultTimeoutMillis);
+    }
+
+    /**
+     * Runs any operation of the repository in the background with its own timeout.
+     * <p>
+     * The future fails with a {@link java.util.concurrent.TimeoutException} if the operation
+     * has not finished in time, and with a {@link RejectedExecutionException} if this facade
+     * has been closed. Completing the future in any other way before the operation finishes,
+     * e.g. with {@link CompletableFuture#cancel(boolean)}, interrupts the worker.
+     * </p>
+     *
+     * @param operation     the operation to run
+     * @param timeoutMillis the time the operation may take; {@code 0} for no timeout
+     * @param <T>           the result type
+     * @return a future for the operation's result
+     */
+    public <T> CompletableFuture<T> submit(Function<MovieRepository, T> operation, long timeoutMillis) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (result.isDone()) return;  // cancelled or timed out before it started
+                try {
+                    result.complete(operation.apply(db));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        if (timeoutMillis > 0) result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> {
+            if (error != null) task.cancel(true);
+        });
+        return result;
+    }
+
+    /** @return the timeout applied to calls that do not specify one, in milliseconds */
+    public long getDefaultTimeoutMillis() { return defaultTimeoutMillis; }
+
+    /** @return the repository performing the actual work */
+    public MovieRepository getDelegate() { return db; }
+
+    /**
+     * Stops accepting new calls and interrupts calls still running.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
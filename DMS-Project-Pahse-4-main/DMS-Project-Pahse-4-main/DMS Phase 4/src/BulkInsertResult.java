@@ -0,0 +1,55 @@
+import java.util.Arrays;
+
+/**
+ * Summarizes the outcome of a batched bulk insert performed by
+ * {@link MovieDatabaseManager#addMovies(java.util.Collection)}.
+ * <p>
+ * Holds the database-generated IDs of every committed row, in input order, and
+ * the wall-clock time each committed chunk took (execute plus commit).
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * BulkInsertResult result = db.addMovies(movies);
+ * System.out.println(result.getInsertedCount() + " rows in " + result.getTotalMillis() + " ms");
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class BulkInsertResult {
+
+    private final int[] generatedIds;
+    private final long[] chunkNanos;
+
+    /**
+     * Creates a result from the collected IDs and chunk timings.
+     *
+     * @param generatedIds the generated IDs of all committed rows, in input order
+     * @param chunkNanos   the elapsed time of each committed chunk in nanoseconds
+     */
+    public BulkInsertResult(int[] generatedIds, long[] chunkNanos) {
+        this.generatedIds = generatedIds;
+        this.chunkNanos = chunkNanos;
+    }
+
+    /** @return the generated IDs of all committed rows, in input order */
+    public int[] getGeneratedIds() { return generatedIds.clone(); }
+
+    /** @return the elapsed time of each committed chunk in nanoseconds */
+    public long[] getChunkNanos() { return chunkNanos.clone(); }
+
+    /** @return the number of rows that were committed */
+    public int getInsertedCount() { return generatedIds.length; }
+
+    /** @return the number of chunks that were committed */
+    public int getChunkCount() { return chunkNanos.length; }
+
+    /** @return the total time spent in committed chunks, in milliseconds */
+    public long getTotalMillis() { return Arrays.stream(chunkNanos).sum() / 1_000_000; }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %d chunks (%d ms)", getInsertedCount(), getChunkCount(), getTotalMillis());
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Result types of the catalog aggregation queries in {@link MovieDatabaseManager}.
+ * <p>
+ * Each result holds its columns in primitive arrays and is immutable, so one instance can
+ * be cached and shared between callers. Values are read by row index, without boxing.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * CatalogStatistics.YearCounts perYear = db.getMovieCountsByYear();
+ * for (int i = 0; i < perYear.size(); i++) {
+ *     System.out.println(perYear.getYear(i) + ": " + perYear.getCount(i));
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public final class CatalogStatistics {
+
+    private CatalogStatistics() {}
+
+    /** Number of movies per release year, in ascending year order. */
+    public static final class YearCounts {
+        private final int[] years;
+        private final int[] counts;
+
+        YearCounts(int[] years, int[] counts) {
+            this.years = years;
+            this.counts = counts;
+        }
+
+        /** @return the number of distinct years */
+        public int size() { return years.length; }
+
+        /** @return the year of row {@code i} */
+        public int getYear(int i) { return years[i]; }
+
+        /** @return the number of movies released in the year of row {@code i} */
+        public int getCount(int i) { return counts[i]; }
+
+        /**
+         * @param year a release year
+         * @return the number of movies released that year; {@code 0} if none
+         */
+        public int countFor(int year) {
+            int i = Arrays.binarySearch(years, year);
+            return i < 0 ? 0 : counts[i];
+        }
+    }
+
+    /** Movie count, average rating and total votes per director, in ascending director order. */
+    public static final class DirectorSummaries {
+        private final String[] directors;
+        private final int[] movieCounts;
+        private final double[] averageRatings;
+        private final long[] totalVotes;
+
+        DirectorSummaries(String[] directors, int[] movieCounts, double[] averageRatings, long[] totalVotes) {
+            this.directors = directors;
+            this.movieCounts = movieCounts;
+            this.averageRatings = averageRatings;
+            this.totalVotes = totalVotes;
+        }
+
+        /** @return the number of distinct directors */
+        public int size() { return directors.length; }
+
+        /** @return the director of row {@code i} */
+        public String getDirector(int i) { return directors[i]; }
+
+        /** @return the number of movies by the director of row {@code i} */
+        public int getMovieCount(int i) { return movieCounts[i]; }
+
+        /** @return the average rating of the director of row {@code i} */
+        public double getAverageRating(int i) { return averageRatings[i]; }
+
+        /** @return the total votes of the director of row {@code i} */
+        public long getTotalVotes(int i) { return totalVotes[i]; }
+    }
+
+    /** Number of watched and unwatched movies. */
+    public static final class WatchedCounts {
+        private final int watched;
+        private final int unwatched;
+
+        WatchedCounts(int watched, int unwatched) {
+            this.watched = watched;
+            this.unwatched = unwatched;
+        }
+
+        /** @return the number of watched movies */
+        public int getWatched() { return watched; }
+
+        /** @return the number of unwatched movies */
+        public int getUnwatched() { return unwatched; }
+
+        /** @return the number of all movies */
+        public int getTotal() { return watched + unwatched; }
+
+        @Override
+        public String toString() {
+            return String.format("%d watched, %d unwatched", watched, unwatched);
+        }
+    }
+
+    /**
+     * Number of movies per rating bucket. The 0–10 rating scale is split into equally wide
+     * buckets; bucket {@code i} covers {@code [i * width, (i + 1) * width)}, and a rating of
+     * exactly 10 is counted in the last bucket.
+     */
+    public static final class RatingHistogram {
+        private final int[] counts;
+
+        RatingHistogram(int[] counts) {
+            this.counts = counts;
+        }
+
+        /** @return the number of buckets */
+        public int size() { return counts.length; }
+
+        /** @return the width of each bucket in rating points */
+        public double getBucketWidth() { return 10.0 / counts.length; }
+
+        /** @return the lowest rating counted in bucket {@code i} */
+        public double getLowerBound(int i) { return i * getBucketWidth(); }
+
+        /** @return the number of movies in bucket {@code i} */
+        public int getCount(int i) { return counts[i]; }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(counts);
+        }
+    }
+}
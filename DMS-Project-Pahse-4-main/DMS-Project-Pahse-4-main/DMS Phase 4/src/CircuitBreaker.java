@@ -0,0 +1,189 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stops callers from waiting on a database that is known to be down.
+ * <p>
+ * The breaker counts consecutive failures to reach the database. Once
+ * {@code failureThreshold} failures occur in a row it <i>opens</i>: for the next
+ * {@code openMillis}, {@link #allowRequest()} returns {@code false} and callers fail
+ * immediately instead of each blocking for a connect timeout. After that time it becomes
+ * <i>half-open</i> and lets exactly one trial request through; its success closes the
+ * breaker again, its failure reopens it for another period.
+ * </p>
+ *
+ * <p><b>States:</b></p>
+ * <ul>
+ *     <li>{@link State#CLOSED} — normal operation, every request is allowed.</li>
+ *     <li>{@link State#OPEN} — the database is considered down, requests are rejected.</li>
+ *     <li>{@link State#HALF_OPEN} — one trial request is in progress, others are rejected.</li>
+ * </ul>
+ *
+ * <p>All methods are thread-safe.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * if (!breaker.allowRequest()) throw new SQLTransientConnectionException("Database unavailable.");
+ * try {
+ *     Connection c = DriverManager.getConnection(url, user, password);
+ *     breaker.recordSuccess();
+ * } catch (SQLException e) {
+ *     breaker.recordFailure();
+ *     throw e;
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class CircuitBreaker {
+
+    /** Default number of consecutive failures that open the breaker. */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    /** Default time the breaker stays open before a trial request is allowed. */
+    public static final long DEFAULT_OPEN_MILLIS = 5_000;
+
+    /** The state of a {@link CircuitBreaker}. */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long rejected;
+    private long trips;
+
+    /** Creates a breaker with the default threshold and open time. */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    /**
+     * Creates a breaker.
+     *
+     * @param failureThreshold consecutive failures that open the breaker (at least 1)
+     * @param openMillis       time the breaker stays open before a trial request (at least 1)
+     * @throws IllegalArgumentException if either argument is less than 1
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("Failure threshold must be at least 1.");
+        if (openMillis < 1) throw new IllegalArgumentException("Open time must be at least 1 ms.");
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    // ==================== REQUESTS ====================
+
+    /**
+     * Decides whether a request may go to the database now.
+     * <p>
+     * A {@code true} result must be followed by {@link #recordSuccess()} or
+     * {@link #recordFailure()}, because in the half-open state it reserves the single trial.
+     * </p>
+     *
+     * @return {@code true} if the request may proceed; {@code false} if it should fail fast
+     */
+    public boolean allowRequest() {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedAt >= openMillis) {
+                        state = State.HALF_OPEN;
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            rejected++;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Records that the database was reached; closes the breaker. */
+    public void recordSuccess() {
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            state = State.CLOSED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Records that the database could not be reached; opens the breaker at the threshold or after a failed trial. */
+    public void recordFailure() {
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+                if (state == State.CLOSED) trips++;
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== STATUS ====================
+
+    /** @return the current state; an open breaker whose open time has passed is still reported as open */
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return {@code true} if requests are currently being rejected or a trial is in progress */
+    public boolean isOpen() {
+        return getState() != State.CLOSED;
+    }
+
+    /** @return the number of failures since the last success */
+    public int getConsecutiveFailures() {
+        lock.lock();
+        try {
+            return consecutiveFailures;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return how many requests were rejected without reaching the database */
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return how many times the breaker has opened after normal operation */
+    public long getTripCount() {
+        lock.lock();
+        try {
+            return trips;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of consecutive failures that open the breaker */
+    public int getFailureThreshold() { return failureThreshold; }
+
+    /** @return the time the breaker stays open before a trial request */
+    public long getOpenMillis() { return openMillis; }
+}
@@ -0,0 +1,559 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A read-only, column-oriented snapshot of the movie catalog for analytics.
+ * <p>
+ * Each field is held in its own primitive array instead of one {@link Movie} object per
+ * row: {@code int[]} for ID, year, runtime and votes, {@code double[]} for rating and a
+ * {@link BitSet} for the watched flag. Directors are dictionary-encoded: every distinct
+ * name is stored once and each row holds an {@code int} code. A scan over one field
+ * therefore touches one contiguous array and never boxes a value.
+ * </p>
+ *
+ * <p><b>Rows:</b></p>
+ * Rows are numbered from 0 in ascending ID order. Filters return the matching row numbers
+ * as an {@code int[]}; sorting, scariness and aggregate methods accept or return such row
+ * arrays, and {@link #getMovie(int)} turns a row back into a {@link Movie} when needed.
+ *
+ * <p><b>Semantics:</b></p>
+ * {@link #findMovies(MovieQuery)} and the aggregate methods return the same results as the
+ * corresponding {@link MovieDatabaseManager} methods, with titles and directors compared
+ * case-insensitively like MySQL's default collation. The snapshot does not follow later
+ * changes; build a new one to pick them up.
+ *
+ * <p>The catalog is immutable once built and safe to share between threads.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * ColumnarCatalog catalog = ColumnarCatalog.of(repo);
+ * int[] rows = catalog.select(new MovieQuery().yearBetween(1970, 1989).watched(false));
+ * for (int row : catalog.scariest(rows, 10)) {
+ *     System.out.println(catalog.getTitle(row) + " " + catalog.getScariness(row));
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public final class ColumnarCatalog {
+
+    private final int size;
+    private final int[] ids;
+    private final String[] titles;
+    private final int[] years;
+    private final int[] directorCodes;
+    private final double[] ratings;
+    private final int[] runtimes;
+    private final int[] votes;
+    private final BitSet watched;
+
+    /** Distinct director spellings in case-insensitive order; {@code directorCodes} index into it. */
+    private final String[] directors;
+
+    /** Group of each entry of {@code directors}; spellings that differ only in case share a group. */
+    private final int[] directorGroups;
+
+    /** Name of each director group: its first spelling in {@code directors}. */
+    private final String[] groupNames;
+
+    private ColumnarCatalog(Builder b) {
+        this.size = b.size;
+        this.ids = Arrays.copyOf(b.ids, size);
+        this.titles = Arrays.copyOf(b.titles, size);
+        this.years = Arrays.copyOf(b.years, size);
+        this.ratings = Arrays.copyOf(b.ratings, size);
+        this.runtimes = Arrays.copyOf(b.runtimes, size);
+        this.votes = Arrays.copyOf(b.votes, size);
+        this.watched = b.watched;
+
+        // Sort the dictionary so codes follow name order, then remap the row codes
+        this.directors = b.dictionary.keySet().toArray(new String[0]);
+        Arrays.sort(directors, Comparator.nullsFirst(
+                String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.<String>naturalOrder())));
+        int[] remap = new int[directors.length];
+        for (int code = 0; code < directors.length; code++) {
+            remap[b.dictionary.get(directors[code])] = code;
+        }
+
+        // Spellings equal ignoring case are adjacent now; each run forms one group, like GROUP BY director
+        this.directorGroups = new int[directors.length];
+        ArrayList<String> names = new ArrayList<>();
+        for (int code = 0; code < directors.length; code++) {
+            if (code == 0 || !equalsIgnoreCase(directors[code - 1], directors[code])) names.add(directors[code]);
+            directorGroups[code] = names.size() - 1;
+        }
+        this.groupNames = names.toArray(new String[0]);
+        this.directorCodes = new int[size];
+        for (int row = 0; row < size; row++) {
+            directorCodes[row] = remap[b.directorCodes[row]];
+        }
+
+        if (!isSortedById()) sortById();
+    }
+
+    // ==================== CONSTRUCTION ====================
+
+    /**
+     * Builds a catalog from a list of movies, e.g. the result of {@link MovieRepository#getAllMovies()}.
+     *
+     * @param movies the movies, in any order
+     * @return the catalog
+     */
+    public static ColumnarCatalog of(Collection<Movie> movies) {
+        Builder b = new Builder(movies.size());
+        for (Movie m : movies) b.add(m);
+        return new ColumnarCatalog(b);
+    }
+
+    /**
+     * Builds a catalog from a stream of movies without collecting them into a list first.
+     *
+     * @param movies the movies, in any order; the stream is consumed but not closed
+     * @return the catalog
+     */
+    public static ColumnarCatalog of(Stream<Movie> movies) {
+        Builder b = new Builder(1024);
+        movies.forEach(b::add);
+        return new ColumnarCatalog(b);
+    }
+
+    /**
+     * Builds a catalog from all movies of a repository, streaming them.
+     *
+     * @param repo the repository to read
+     * @return the catalog
+     */
+    public static ColumnarCatalog of(MovieRepository repo) {
+        try (Stream<Movie> movies = repo.streamAllMovies()) {
+            return of(movies);
+        }
+    }
+
+    // ==================== ROW ACCESS ====================
+
+    /** @return the number of rows */
+    public int size() { return size; }
+
+    /** @return the ID of row {@code row} */
+    public int getId(int row) { return ids[row]; }
+
+    /** @return the title of row {@code row} */
+    public String getTitle(int row) { return titles[row]; }
+
+    /** @return the release year of row {@code row} */
+    public int getYear(int row) { return years[row]; }
+
+    /** @return the director of row {@code row} */
+    public String getDirector(int row) { return directors[directorCodes[row]]; }
+
+    /** @return the rating of row {@code row} */
+    public double getRating(int row) { return ratings[row]; }
+
+    /** @return the runtime in minutes of row {@code row} */
+    public int getRuntimeMinutes(int row) { return runtimes[row]; }
+
+    /** @return the number of votes of row {@code row} */
+    public int getVotes(int row) { return votes[row]; }
+
+    /** @return whether the movie of row {@code row} has been watched */
+    public boolean isWatched(int row) { return watched.get(row); }
+
+    /** @return the number of distinct directors, ignoring case */
+    public int getDirectorCount() { return groupNames.length; }
+
+    /**
+     * Creates a {@link Movie} from one row.
+     *
+     * @param row the row number
+     * @return a new movie with the values of the row
+     */
+    public Movie getMovie(int row) {
+        return new Movie(ids[row], titles[row], years[row], getDirector(row),
+                ratings[row], runtimes[row], votes[row], watched.get(row));
+    }
+
+    /**
+     * Finds the row of a movie ID.
+     *
+     * @param id the movie ID
+     * @return the row number, or {@code -1} if the catalog does not contain the ID
+     */
+    public int rowOf(int id) {
+        int row = Arrays.binarySearch(ids, id);
+        return row < 0 ? -1 : row;
+    }
+
+    // ==================== FILTERING AND SORTING ====================
+
+    /**
+     * Returns the rows matching a query, in the query's sort order and up to its limit.
+     * <p>
+     * Each criterion is applied in one pass over its column, narrowing a single array of
+     * candidate rows in place.
+     * </p>
+     *
+     * @param query the filter, sort and limit criteria
+     * @return the matching row numbers
+     */
+    public int[] select(MovieQuery query) {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) rows[i] = i;
+        int n = size;
+
+        if (query.getDirector() != null) {
+            boolean[] codes = new boolean[directors.length];
+            for (int code = 0; code < directors.length; code++) {
+                codes[code] = query.getDirector().equalsIgnoreCase(directors[code]);
+            }
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (codes[directorCodes[rows[i]]]) rows[kept++] = rows[i];
+            }
+            n = kept;
+        }
+        if (query.getMinYear() != null || query.getMaxYear() != null) {
+            int min = query.getMinYear() != null ? query.getMinYear() : Integer.MIN_VALUE;
+            int max = query.getMaxYear() != null ? query.getMaxYear() : Integer.MAX_VALUE;
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                int year = years[rows[i]];
+                if (year >= min && year <= max) rows[kept++] = rows[i];
+            }
+            n = kept;
+        }
+        if (query.getMinRating() != null || query.getMaxRating() != null) {
+            double min = query.getMinRating() != null ? query.getMinRating() : Double.NEGATIVE_INFINITY;
+            double max = query.getMaxRating() != null ? query.getMaxRating() : Double.POSITIVE_INFINITY;
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                double rating = ratings[rows[i]];
+                if (rating >= min && rating <= max) rows[kept++] = rows[i];
+            }
+            n = kept;
+        }
+        if (query.getWatched() != null) {
+            boolean wanted = query.getWatched();
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (watched.get(rows[i]) == wanted) rows[kept++] = rows[i];
+            }
+            n = kept;
+        }
+        if (query.getTitlePrefix() != null) {
+            String prefix = query.getTitlePrefix();
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                String title = titles[rows[i]];
+                if (title != null && title.regionMatches(true, 0, prefix, 0, prefix.length())) rows[kept++] = rows[i];
+            }
+            n = kept;
+        }
+
+        rows = Arrays.copyOf(rows, n);
+        if (query.getSortKey() != MovieSortKey.ID || query.isDescending()) {
+            rows = sort(rows, query.getSortKey(), query.isDescending());
+        }
+        int limit = query.getLimit();
+        return limit > 0 && limit < rows.length ? Arrays.copyOf(rows, limit) : rows;
+    }
+
+    /**
+     * Returns the movies matching a query, like {@link MovieDatabaseManager#findMovies(MovieQuery)}.
+     *
+     * @param query the filter, sort and limit criteria
+     * @return the matching movies in the query's order
+     */
+    public ArrayList<Movie> findMovies(MovieQuery query) {
+        int[] rows = select(query);
+        ArrayList<Movie> result = new ArrayList<>(rows.length);
+        for (int row : rows) result.add(getMovie(row));
+        return result;
+    }
+
+    /**
+     * Sorts rows by one column, breaking ties by ID in the same direction.
+     *
+     * @param rows       the row numbers to sort; not modified
+     * @param key        the column to sort by
+     * @param descending {@code true} for descending order
+     * @return the sorted row numbers
+     */
+    public int[] sort(int[] rows, MovieSortKey key, boolean descending) {
+        int[] sorted = rows.clone();
+        RowComparator byKey;
+        switch (key) {
+            case TITLE:
+                byKey = (a, b) -> compareIgnoreCaseNullsFirst(titles[a], titles[b]);
+                break;
+            case YEAR:
+                byKey = (a, b) -> Integer.compare(years[a], years[b]);
+                break;
+            case RATING:
+                byKey = (a, b) -> Double.compare(ratings[a], ratings[b]);
+                break;
+            default:
+                byKey = (a, b) -> 0;
+        }
+        // Rows are in ID order, so comparing row numbers breaks ties by ID
+        RowComparator order = descending
+                ? (a, b) -> { int c = byKey.compare(b, a); return c != 0 ? c : Integer.compare(b, a); }
+                : (a, b) -> { int c = byKey.compare(a, b); return c != 0 ? c : Integer.compare(a, b); };
+        mergeSort(sorted, order);
+        return sorted;
+    }
+
+    // ==================== SCARINESS ====================
+
+    /**
+     * @param row the row number
+     * @return the scariness score of the row, as computed by {@link Movie#getScariness()}
+     */
+    public double getScariness(int row) {
+        return Movie.scariness(ratings[row], votes[row], runtimes[row], watched.get(row));
+    }
+
+    /**
+     * Computes the scariness score of every row in one pass over the rating, votes,
+     * runtime and watched columns.
+     *
+     * @return the scores, indexed by row number
+     */
+    public double[] getScariness() {
+        double[] scores = new double[size];
+        for (int row = 0; row < size; row++) {
+            scores[row] = Movie.scariness(ratings[row], votes[row], runtimes[row], watched.get(row));
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the scariest movies among the given rows, scariest first and ties by ID.
+     *
+     * @param rows  the candidate row numbers, e.g. from {@link #select(MovieQuery)}
+     * @param limit the maximum number of rows to return
+     * @return the row numbers of the scariest movies
+     */
+    public int[] scariest(int[] rows, int limit) {
+        double[] scores = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) scores[i] = getScariness(rows[i]);
+        int[] order = new int[rows.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        mergeSort(order, (a, b) -> {
+            int c = Double.compare(scores[b], scores[a]);
+            return c != 0 ? c : Integer.compare(rows[a], rows[b]);
+        });
+
+        int[] result = new int[Math.min(limit, order.length)];
+        for (int i = 0; i < result.length; i++) result[i] = rows[order[i]];
+        return result;
+    }
+
+    /**
+     * @param rows the row numbers to average over
+     * @return the mean scariness score of the rows, or {@code 0} if there are none
+     */
+    public double averageScariness(int[] rows) {
+        if (rows.length == 0) return 0;
+        double sum = 0;
+        for (int row : rows) sum += getScariness(row);
+        return sum / rows.length;
+    }
+
+    // ==================== AGGREGATES ====================
+
+    /**
+     * @return the number of movies per release year, like {@link MovieDatabaseManager#getMovieCountsByYear()}
+     */
+    public CatalogStatistics.YearCounts getMovieCountsByYear() {
+        int[] sorted = Arrays.copyOf(years, size);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) distinct++;
+        }
+        int[] distinctYears = new int[distinct];
+        int[] counts = new int[distinct];
+        int k = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) distinctYears[++k] = sorted[i];
+            counts[k]++;
+        }
+        return new CatalogStatistics.YearCounts(distinctYears, counts);
+    }
+
+    /**
+     * @return count, average rating and total votes per director, like
+     *         {@link MovieDatabaseManager#getDirectorSummaries()}; spellings that differ only
+     *         in case are counted together under one of them
+     */
+    public CatalogStatistics.DirectorSummaries getDirectorSummaries() {
+        int[] counts = new int[groupNames.length];
+        double[] ratingSums = new double[groupNames.length];
+        long[] voteSums = new long[groupNames.length];
+        for (int row = 0; row < size; row++) {
+            int group = directorGroups[directorCodes[row]];
+            counts[group]++;
+            ratingSums[group] += ratings[row];
+            voteSums[group] += votes[row];
+        }
+        for (int group = 0; group < groupNames.length; group++) {
+            ratingSums[group] /= counts[group];
+        }
+        return new CatalogStatistics.DirectorSummaries(groupNames.clone(), counts, ratingSums, voteSums);
+    }
+
+    /** @return the number of watched and unwatched movies */
+    public CatalogStatistics.WatchedCounts getWatchedCounts() {
+        int watchedCount = watched.cardinality();
+        return new CatalogStatistics.WatchedCounts(watchedCount, size - watchedCount);
+    }
+
+    /**
+     * Counts movies per rating bucket, like {@link MovieDatabaseManager#getRatingHistogram(int)}.
+     *
+     * @param buckets the number of buckets (at least 1)
+     * @return the histogram
+     * @throws IllegalArgumentException if {@code buckets} is less than 1
+     */
+    public CatalogStatistics.RatingHistogram getRatingHistogram(int buckets) {
+        if (buckets < 1) throw new IllegalArgumentException("Histogram needs at least 1 bucket.");
+        int[] counts = new int[buckets];
+        for (int row = 0; row < size; row++) {
+            int bucket = (int) Math.floor(ratings[row] * buckets / 10);
+            counts[Math.max(0, Math.min(bucket, buckets - 1))]++;
+        }
+        return new CatalogStatistics.RatingHistogram(counts);
+    }
+
+    // ==================== HELPERS ====================
+
+    /** Compares two rows; a primitive alternative to {@code Comparator<Integer>}. */
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    /** Stable merge sort of an {@code int[]} using one scratch array. */
+    private static void mergeSort(int[] a, RowComparator cmp) {
+        int[] src = a;
+        int[] dst = new int[a.length];
+        for (int width = 1; width < a.length; width *= 2) {
+            for (int lo = 0; lo < a.length; lo += 2 * width) {
+                int mid = Math.min(lo + width, a.length);
+                int hi = Math.min(lo + 2 * width, a.length);
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    dst[k] = i < mid && (j >= hi || cmp.compare(src[i], src[j]) <= 0) ? src[i++] : src[j++];
+                }
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) System.arraycopy(src, 0, a, 0, a.length);
+    }
+
+    private static int compareIgnoreCaseNullsFirst(String a, String b) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : -1) : 1;
+        return String.CASE_INSENSITIVE_ORDER.compare(a, b);
+    }
+
+    private static boolean equalsIgnoreCase(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+
+    private boolean isSortedById() {
+        for (int row = 1; row < size; row++) {
+            if (ids[row] < ids[row - 1]) return false;
+        }
+        return true;
+    }
+
+    /** Reorders all columns into ascending ID order. */
+    private void sortById() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        mergeSort(order, (a, b) -> Integer.compare(ids[a], ids[b]));
+
+        int[] intScratch = new int[size];
+        permute(ids, order, intScratch);
+        permute(years, order, intScratch);
+        permute(runtimes, order, intScratch);
+        permute(votes, order, intScratch);
+        permute(directorCodes, order, intScratch);
+
+        double[] ratingScratch = new double[size];
+        String[] titleScratch = new String[size];
+        BitSet watchedScratch = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            ratingScratch[i] = ratings[order[i]];
+            titleScratch[i] = titles[order[i]];
+            if (watched.get(order[i])) watchedScratch.set(i);
+        }
+        System.arraycopy(ratingScratch, 0, ratings, 0, size);
+        System.arraycopy(titleScratch, 0, titles, 0, size);
+        watched.clear();
+        watched.or(watchedScratch);
+    }
+
+    private static void permute(int[] column, int[] order, int[] scratch) {
+        for (int i = 0; i < order.length; i++) scratch[i] = column[order[i]];
+        System.arraycopy(scratch, 0, column, 0, order.length);
+    }
+
+    /** Accumulates rows in growable arrays and assigns provisional director codes. */
+    private static final class Builder {
+        private int size;
+        private int[] ids;
+        private String[] titles;
+        private int[] years;
+        private int[] directorCodes;
+        private double[] ratings;
+        private int[] runtimes;
+        private int[] votes;
+        private final BitSet watched = new BitSet();
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        Builder(int capacity) {
+            capacity = Math.max(16, capacity);
+            ids = new int[capacity];
+            titles = new String[capacity];
+            years = new int[capacity];
+            directorCodes = new int[capacity];
+            ratings = new double[capacity];
+            runtimes = new int[capacity];
+            votes = new int[capacity];
+        }
+
+        void add(Movie m) {
+            if (size == ids.length) grow();
+            ids[size] = m.getId();
+            titles[size] = m.getTitle();
+            years[size] = m.getYear();
+            directorCodes[size] = dictionary.computeIfAbsent(m.getDirector(), d -> dictionary.size());
+            ratings[size] = m.getRating();
+            runtimes[size] = m.getRuntimeMinutes();
+            votes[size] = m.getVotes();
+            if (m.isWatched()) watched.set(size);
+            size++;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            years = Arrays.copyOf(years, capacity);
+            directorCodes = Arrays.copyOf(directorCodes, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            runtimes = Arrays.copyOf(runtimes, capacity);
+            votes = Arrays.copyOf(votes, capacity);
+        }
+    }
+}
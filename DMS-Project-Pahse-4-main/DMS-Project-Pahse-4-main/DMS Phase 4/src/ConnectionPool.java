@@ -0,0 +1,773 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small, bounded pool of JDBC connections shared by the data access layer.
+ * <p>
+ * Connections are opened lazily through {@link DriverManager} up to a fixed maximum.
+ * Each call to {@link #getConnection()} borrows one connection; calling
+ * {@link Connection#close()} on it returns it to the pool instead of closing the
+ * underlying socket, so callers can keep using try-with-resources as usual.
+ * </p>
+ *
+ * <p><b>Role in the System:</b></p>
+ * Replaces the single shared {@link Connection} that used to be handed from
+ * {@link DBConnectionDialog} to {@link MovieDatabaseManager}. Because every operation
+ * borrows its own connection, background refreshes, imports and GUI edits can run
+ * at the same time instead of queueing behind one socket.
+ *
+ * <p><b>Pool Maintenance:</b></p>
+ * <ul>
+ *     <li><b>Validation on borrow:</b> idle connections are checked with {@link Connection#isValid(int)}
+ *         before being handed out; broken ones are discarded and replaced.</li>
+ *     <li><b>Idle eviction:</b> connections left unused longer than the idle timeout are closed
+ *         by a background housekeeping task.</li>
+ *     <li><b>Leak detection:</b> connections held longer than the leak threshold are reported
+ *         once on {@code System.err}, together with the stack trace of the code that borrowed them.</li>
+ *     <li><b>Statement caching:</b> {@code prepareStatement(sql)} and {@code prepareStatement(sql, autoGeneratedKeys)}
+ *         are served from a small LRU cache kept per physical connection. Closing such a statement
+ *         returns it to the cache, so hot queries are prepared once per connection rather than once per call.
+ *         Parameters, batches and changed fetch size, row limit and timeout are reset on return;
+ *         a statement whose other settings were changed is closed instead of cached.</li>
+ *     <li><b>Health checks:</b> {@link #checkHealth()} runs in the background every
+ *         {@link #DEFAULT_HEALTH_CHECK_MILLIS}, so connections dropped by the server are replaced
+ *         before a caller needs them and an outage is detected without user traffic.</li>
+ *     <li><b>Circuit breaker:</b> after repeated failures to open a connection, the
+ *         {@link CircuitBreaker} makes {@link #getConnection()} fail immediately instead of
+ *         letting every caller wait for a connect timeout. The background health check lets a
+ *         single trial connection through when the open time has passed and closes the breaker
+ *         as soon as the database answers again.</li>
+ *     <li><b>Slow-query log:</b> with a {@link SlowQueryLog} set, statements slower than its
+ *         threshold are written to a rotating file together with their parameters and row counts.</li>
+ * </ul>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * ConnectionPool pool = new ConnectionPool(url, "root", password);
+ * try (Connection conn = pool.getConnection()) {
+ *     // use the connection; close() hands it back to the pool
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /** Default maximum number of open connections. */
+    public static final int DEFAULT_MAX_SIZE = 8;
+
+    /** Default time to wait for a free connection before giving up. */
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 10_000;
+
+    /** Default time an unused connection may stay open before it is evicted. */
+    public static final long DEFAULT_MAX_IDLE_MILLIS = 5 * 60_000;
+
+    /** Default time a borrowed connection may be held before it is reported as leaked. */
+    public static final long DEFAULT_LEAK_THRESHOLD_MILLIS = 60_000;
+
+    /** Default number of prepared statements cached per physical connection. */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    /** Default time between background health checks. */
+    public static final long DEFAULT_HEALTH_CHECK_MILLIS = 2_000;
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 15_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long maxIdleMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    /** One permit per connection that may be borrowed; bounds the pool size. */
+    private final Semaphore permits;
+
+    /** Returned connections, most recently used first. Guarded by its own monitor. */
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+
+    /** Borrowed connections keyed by the proxy handed to the caller. */
+    private final Map<Connection, Lease> leases = new ConcurrentHashMap<>();
+
+    /** Prepared-statement caches keyed by the physical connection they belong to. */
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    /** Rejects borrowers while the database cannot be reached. */
+    private final CircuitBreaker breaker = new CircuitBreaker();
+
+    /** Times prepared statements when set; {@code null} otherwise. */
+    private volatile SlowQueryLog slowQueryLog;
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // ==================== CONSTRUCTORS ====================
+
+    /**
+     * Creates a pool with the default size, timeouts and leak threshold.
+     *
+     * @param url      the JDBC URL of the database
+     * @param username the database user
+     * @param password the database password
+     */
+    public ConnectionPool(String url, String username, String password) {
+        this(url, username, password, DEFAULT_MAX_SIZE, DEFAULT_BORROW_TIMEOUT_MILLIS,
+                DEFAULT_MAX_IDLE_MILLIS, DEFAULT_LEAK_THRESHOLD_MILLIS);
+    }
+
+    /**
+     * Creates a pool with the default statement cache size.
+     *
+     * @param url                 the JDBC URL of the database
+     * @param username            the database user
+     * @param password            the database password
+     * @param maxSize             maximum number of simultaneously open connections (at least 1)
+     * @param borrowTimeoutMillis how long {@link #getConnection()} waits for a free connection
+     * @param maxIdleMillis       how long an unused connection may stay open
+     * @param leakThresholdMillis how long a connection may be held before it is reported; {@code 0} disables detection
+     * @throws IllegalArgumentException if {@code maxSize} is less than 1
+     */
+    public ConnectionPool(String url, String username, String password, int maxSize,
+                          long borrowTimeoutMillis, long maxIdleMillis, long leakThresholdMillis) {
+        this(url, username, password, maxSize, borrowTimeoutMillis, maxIdleMillis, leakThresholdMillis,
+                DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a fully configured pool. No connection is opened until the first borrow.
+     *
+     * @param url                 the JDBC URL of the database
+     * @param username            the database user
+     * @param password            the database password
+     * @param maxSize             maximum number of simultaneously open connections (at least 1)
+     * @param borrowTimeoutMillis how long {@link #getConnection()} waits for a free connection
+     * @param maxIdleMillis       how long an unused connection may stay open
+     * @param leakThresholdMillis how long a connection may be held before it is reported; {@code 0} disables detection
+     * @param statementCacheSize  prepared statements cached per physical connection; {@code 0} disables caching
+     * @throws IllegalArgumentException if {@code maxSize} is less than 1 or {@code statementCacheSize} is negative
+     */
+    public ConnectionPool(String url, String username, String password, int maxSize,
+                          long borrowTimeoutMillis, long maxIdleMillis, long leakThresholdMillis,
+                          int statementCacheSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("Pool size must be at least 1.");
+        if (statementCacheSize < 0) throw new IllegalArgumentException("Statement cache size must not be negative.");
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.maxIdleMillis = maxIdleMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        housekeeper.scheduleWithFixedDelay(this::checkHealth,
+                DEFAULT_HEALTH_CHECK_MILLIS, DEFAULT_HEALTH_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== BORROW / RETURN ====================
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no valid idle connection exists.
+     * <p>
+     * The returned connection must be closed by the caller; closing it returns it to the pool.
+     * </p>
+     *
+     * @return a validated connection leased to the caller
+     * @throws SQLException if the pool is closed, no connection became free in time,
+     *                      the circuit breaker is open, or a new connection could not be opened
+     */
+    public Connection getConnection() throws SQLException {
+        return borrow(borrowTimeoutMillis);
+    }
+
+    /**
+     * Borrows a connection, waiting at most {@code timeoutMillis} for a free one.
+     * <p>
+     * While the circuit breaker is open, fails with a {@link SQLTransientConnectionException}
+     * without contacting the database. Otherwise an idle connection is validated, or a new
+     * one opened, and the outcome is reported to the breaker.
+     * </p>
+     */
+    private Connection borrow(long timeoutMillis) throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed.");
+
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Timed out after " + timeoutMillis + " ms waiting for a pooled connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+        }
+
+        boolean trial = false;
+        if (breaker.isOpen()) {
+            if (!breaker.allowRequest()) {
+                permits.release();
+                throw new SQLTransientConnectionException(
+                        "Database unavailable after " + breaker.getConsecutiveFailures() + " failed connection attempts.");
+            }
+            trial = true;
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = open();
+            } else if (trial) {
+                breaker.recordSuccess();
+            }
+            return lease(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Opens a new physical connection and reports the outcome to the circuit breaker. */
+    private Connection open() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(url, username, password);
+            breaker.recordSuccess();
+            return physical;
+        } catch (SQLException e) {
+            breaker.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * Pops idle connections until one passes validation.
+     *
+     * @return a valid idle connection, or {@code null} if none is available
+     */
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) return null;
+
+            try {
+                if (candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return candidate.connection;
+                }
+            } catch (SQLException ignored) {
+                // Treated the same as an invalid connection below
+            }
+            discard(candidate.connection);
+        }
+    }
+
+    /**
+     * Wraps a physical connection in a proxy whose {@code close()} returns it to the pool.
+     */
+    private Connection lease(Connection physical) {
+        Lease lease = new Lease(physical, leakThresholdMillis > 0
+                ? new Throwable("Connection borrowed by thread " + Thread.currentThread().getName())
+                : null);
+        Connection proxy = (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler(lease));
+        leases.put(proxy, lease);
+        return proxy;
+    }
+
+    /**
+     * Returns a leased connection to the pool. Calling this more than once is harmless.
+     */
+    private void release(Connection proxy, Lease lease) {
+        if (!lease.returned.compareAndSet(false, true)) return;
+        leases.remove(proxy);
+
+        Connection physical = lease.connection;
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (closed || physical.isClosed()) {
+                discard(physical);
+            } else {
+                synchronized (idle) {
+                    idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+                }
+            }
+        } catch (SQLException e) {
+            // A connection that cannot be reset is not worth keeping
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // ==================== HOUSEKEEPING ====================
+
+    /** Runs idle eviction and leak detection; scheduled periodically. */
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Closes connections that have been idle longer than the configured timeout. */
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - maxIdleMillis;
+        synchronized (idle) {
+            Iterator<IdleConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext()) {
+                IdleConnection candidate = oldestFirst.next();
+                if (candidate.idleSince >= cutoff) break;
+                oldestFirst.remove();
+                discard(candidate.connection);
+            }
+        }
+    }
+
+    /** Reports (once) every connection held longer than the leak threshold. */
+    private void detectLeaks() {
+        if (leakThresholdMillis <= 0) return;
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.values()) {
+            if (now - lease.borrowedAt > leakThresholdMillis && !lease.reported) {
+                lease.reported = true;
+                System.err.println("Possible connection leak: connection held for "
+                        + (now - lease.borrowedAt) + " ms without being closed.");
+                lease.borrowSite.printStackTrace();
+            }
+        }
+    }
+
+    // ==================== HEALTH ====================
+
+    /**
+     * Checks that the database can be reached, without waiting for a busy pool.
+     * <p>
+     * Borrows and returns one connection: an idle connection is validated (dead ones are
+     * discarded on the way) or a new one is opened. Runs periodically in the background; while
+     * the circuit breaker is open it does nothing until the open time has passed and then acts
+     * as the breaker's trial request.
+     * </p>
+     *
+     * @return {@code true} if the database answered, or if all connections are in use and the
+     *         breaker is closed; {@code false} otherwise
+     */
+    public boolean checkHealth() {
+        if (closed) return false;
+        try (Connection probe = borrow(0)) {
+            return !probe.isClosed();
+        } catch (SQLTransientConnectionException e) {
+            return !breaker.isOpen();
+        } catch (SQLException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** @return the circuit breaker guarding new connections */
+    public CircuitBreaker getCircuitBreaker() { return breaker; }
+
+    /**
+     * Starts timing the prepared statements of connections borrowed from now on and writing
+     * the slow ones to {@code log}, or stops doing so if {@code log} is {@code null}.
+     * The log is not closed by this pool.
+     *
+     * @param log the log to write slow statements to, or {@code null}
+     */
+    public void setSlowQueryLog(SlowQueryLog log) {
+        if (log != null) log.attach(this);
+        this.slowQueryLog = log;
+    }
+
+    /** @return the log slow statements are written to, or {@code null} if none is set */
+    public SlowQueryLog getSlowQueryLog() { return slowQueryLog; }
+
+    // ==================== STATUS ====================
+
+    /** @return the maximum number of connections this pool will open */
+    public int getMaxSize() { return maxSize; }
+
+    /** @return the number of connections currently borrowed */
+    public int getActiveCount() { return leases.size(); }
+
+    /** @return the number of open connections waiting in the pool */
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /** @return the number of prepared statements cached per physical connection; {@code 0} if caching is off */
+    public int getStatementCacheSize() { return statementCacheSize; }
+
+    /**
+     * Returns a snapshot of the prepared-statement cache counters across all connections.
+     *
+     * @return hits, misses, evictions and the number of statements currently cached
+     */
+    public StatementCacheStats getStatementCacheStats() {
+        int cached = 0;
+        for (StatementCache cache : statementCaches.values()) cached += cache.size();
+        return new StatementCacheStats(statementHits.sum(), statementMisses.sum(), statementEvictions.sum(), cached);
+    }
+
+    /**
+     * Closes all idle connections and stops housekeeping. Connections still borrowed
+     * are closed as soon as they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            for (IdleConnection c : idle) discard(c.connection);
+            idle.clear();
+        }
+    }
+
+    /** Drops the statement cache of a physical connection and closes it. */
+    private void discard(Connection physical) {
+        statementCaches.remove(physical);
+        closeQuietly(physical);
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            // Nothing useful to do with a failure while discarding a connection or statement
+        }
+    }
+
+    // ==================== INTERNAL TYPES ====================
+
+    /** A physical connection waiting in the pool. */
+    private static final class IdleConnection {
+        final Connection connection;
+        final long idleSince;
+
+        IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /** Book-keeping for one borrowed connection. */
+    private static final class Lease {
+        final Connection connection;
+        final long borrowedAt = System.currentTimeMillis();
+        final Throwable borrowSite;
+        final AtomicBoolean returned = new AtomicBoolean();
+        volatile boolean reported;
+
+        Lease(Connection connection, Throwable borrowSite) {
+            this.connection = connection;
+            this.borrowSite = borrowSite;
+        }
+    }
+
+    /** Forwards calls to the physical connection, intercepting {@code close()}. */
+    private final class LeaseHandler implements InvocationHandler {
+        private final Lease lease;
+
+        LeaseHandler(Lease lease) {
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release((Connection) proxy, lease);
+                    return null;
+                case "isClosed":
+                    return lease.returned.get() || lease.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + lease.connection + "]";
+                default:
+                    break;
+            }
+            if (lease.returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            Object result;
+            if (statementCacheSize > 0 && isCacheable(method)) {
+                StatementCache cache = statementCaches.computeIfAbsent(lease.connection, StatementCache::new);
+                int generatedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                result = cache.prepare((Connection) proxy, (String) args[0], generatedKeys);
+            } else {
+                try {
+                    result = method.invoke(lease.connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            SlowQueryLog log = slowQueryLog;
+            if (log != null && method.getName().equals("prepareStatement")) {
+                return log.wrap((PreparedStatement) result, (String) args[0]);
+            }
+            return result;
+        }
+    }
+
+    /** @return whether the method is {@code prepareStatement(String)} or {@code prepareStatement(String, int)} */
+    private static boolean isCacheable(Method method) {
+        if (!method.getName().equals("prepareStatement")) return false;
+        Class<?>[] params = method.getParameterTypes();
+        return params.length == 1 && params[0] == String.class
+                || params.length == 2 && params[0] == String.class && params[1] == int.class;
+    }
+
+    /**
+     * Least-recently-used cache of the prepared statements of one physical connection.
+     * <p>
+     * A physical connection is leased to one borrower at a time, but a borrower may prepare
+     * the same SQL twice before closing the first statement; the second request then gets a
+     * plain, uncached statement. Statements evicted while checked out are closed on check-in.
+     * A {@link ReentrantLock} rather than a monitor guards the cache, because preparing may
+     * block on the network and must not pin a virtual thread to its carrier.
+     * </p>
+     */
+    private final class StatementCache {
+        private final Connection connection;
+        private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+        private final ReentrantLock lock = new ReentrantLock();
+
+        StatementCache(Connection connection) {
+            this.connection = connection;
+        }
+
+        PreparedStatement prepare(Connection owner, String sql, int generatedKeys) throws SQLException {
+            String key = generatedKeys == Statement.RETURN_GENERATED_KEYS ? "keys:" + sql : sql;
+            CachedStatement cached;
+            lock.lock();
+            try {
+                cached = statements.get(key);
+                if (cached != null && cached.inUse) {
+                    statementMisses.increment();
+                    return connection.prepareStatement(sql, generatedKeys);
+                }
+                if (cached != null) {
+                    statementHits.increment();
+                } else {
+                    statementMisses.increment();
+                    PreparedStatement stmt = connection.prepareStatement(sql, generatedKeys);
+                    try {
+                        cached = new CachedStatement(this, stmt);
+                    } catch (SQLException | RuntimeException e) {
+                        closeQuietly(stmt);
+                        throw e;
+                    }
+                    statements.put(key, cached);
+                    evictOverflow();
+                }
+                cached.inUse = true;
+            } finally {
+                lock.unlock();
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new StatementHandle(cached, owner));
+        }
+
+        /** Removes least recently used statements until the cache fits its bound. */
+        private void evictOverflow() {
+            Iterator<CachedStatement> eldestFirst = statements.values().iterator();
+            while (statements.size() > statementCacheSize && eldestFirst.hasNext()) {
+                CachedStatement candidate = eldestFirst.next();
+                eldestFirst.remove();
+                candidate.evicted = true;
+                statementEvictions.increment();
+                if (!candidate.inUse) closeQuietly(candidate.statement);
+            }
+        }
+
+        /** Takes back a statement whose handle was closed, resetting it for the next borrower. */
+        void checkIn(CachedStatement cached) {
+            lock.lock();
+            try {
+                cached.inUse = false;
+                if (cached.evicted) {
+                    closeQuietly(cached.statement);
+                } else if (!cached.reset()) {
+                    statements.values().remove(cached);
+                    closeQuietly(cached.statement);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return statements.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Statement settings {@link CachedStatement#reset()} restores to their initial values. */
+    private static final Set<String> RESETTABLE_SETTINGS = Set.of(
+            "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout");
+
+    /** Statement settings that cannot be read back; changing one keeps the statement out of the cache. */
+    private static final Set<String> UNRESETTABLE_SETTINGS = Set.of(
+            "setCursorName", "setEscapeProcessing", "setPoolable", "closeOnCompletion");
+
+    /** A statement held by a {@link StatementCache}. */
+    private static final class CachedStatement {
+        final StatementCache cache;
+        final PreparedStatement statement;
+        boolean inUse;      // guarded by cache.lock
+        boolean evicted;    // guarded by cache.lock
+
+        /** Set by the borrower's handle; read on check-in by the same thread. */
+        boolean settingsChanged;
+        boolean unresettable;
+
+        private final int fetchSize;
+        private final int fetchDirection;
+        private final int maxRows;
+        private final int maxFieldSize;
+        private final int queryTimeout;
+
+        CachedStatement(StatementCache cache, PreparedStatement statement) throws SQLException {
+            this.cache = cache;
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.maxRows = statement.getMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        /** Records a call that changes a statement-level setting. */
+        void noteSetting(String method) {
+            if (RESETTABLE_SETTINGS.contains(method)) settingsChanged = true;
+            else if (UNRESETTABLE_SETTINGS.contains(method)) unresettable = true;
+        }
+
+        /**
+         * Clears parameters and batch and restores changed settings.
+         *
+         * @return {@code false} if the statement cannot be handed to another borrower as new
+         */
+        boolean reset() {
+            if (unresettable) return false;
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                if (settingsChanged) {
+                    statement.setFetchSize(fetchSize);
+                    statement.setFetchDirection(fetchDirection);
+                    statement.setMaxRows(maxRows);
+                    statement.setMaxFieldSize(maxFieldSize);
+                    statement.setQueryTimeout(queryTimeout);
+                    settingsChanged = false;
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The handle given to the borrower of a cached statement. Forwards calls to the statement,
+     * except that {@code close()} returns it to the cache and {@code getConnection()} returns
+     * the pooled connection rather than the physical one.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean closed;
+
+        StatementHandle(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.cache.checkIn(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + cached.statement + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed.");
+            }
+            cached.noteSetting(method.getName());
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -2,7 +2,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
@@ -15,7 +14,7 @@ import java.sql.SQLException;
  *
  * <p><b>Role in the System:</b></p>
  * Serves as the first interaction point in the Data Management System (DMS), providing
- * connection details to initialize the {@link java.sql.Connection} object used throughout
+ * connection details to initialize the {@link ConnectionPool} used throughout
  * the application by classes such as {@link MovieDatabaseManager}.
  *
  * <p><b>Dependencies:</b></p>
@@ -26,9 +25,9 @@ import java.sql.SQLException;
  *
  * <p><b>Example Usage:</b></p>
  * <pre>{@code
- * Connection conn = DBConnectionDialog.showDialog(null);
- * if (conn != null) {
- *     MovieDatabaseManager db = new MovieDatabaseManager(conn);
+ * ConnectionPool pool = DBConnectionDialog.showDialog(null);
+ * if (pool != null) {
+ *     MovieDatabaseManager db = new MovieDatabaseManager(pool);
  *     new MovieGUI(db);
  * }
  * }</pre>
@@ -44,7 +43,7 @@ public class DBConnectionDialog extends JDialog {
     private JPasswordField passField;
     private JButton connectButton;
     private JButton cancelButton;
-    private Connection connection;
+    private ConnectionPool pool;
 
     /**
      * Constructs a {@code DBConnectionDialog} with fields for entering connection details.
@@ -104,9 +103,9 @@ public class DBConnectionDialog extends JDialog {
     /**
      * Handles the connection attempt when the “Connect” button is clicked.
      * <p>
-     * Validates that all required fields are filled and attempts to connect using
-     * the provided information. Displays error dialogs for invalid inputs or
-     * failed connection attempts.
+     * Validates that all required fields are filled, creates a {@link ConnectionPool}
+     * for the provided information and borrows one connection to verify it. Displays
+     * error dialogs for invalid inputs or failed connection attempts.
      * </p>
      *
      * @param e the {@link ActionEvent} triggered by the Connect button
@@ -125,16 +124,20 @@ public class DBConnectionDialog extends JDialog {
             return;
         }
 
-        // Build connection URL
-        String url = "jdbc:mysql://" + host + "/" + dbName + "?useSSL=false";
+        String url = buildUrl(host, dbName);
 
-        try {
-            connection = DriverManager.getConnection(url, username, password);
+        ConnectionPool candidate = new ConnectionPool(url, username, password);
+        try (Connection probe = candidate.getConnection()) {
+            if (!probe.isValid(5)) {
+                throw new SQLException("The database did not answer.");
+            }
+            pool = candidate;
             JOptionPane.showMessageDialog(this,
                     "Connection successful!",
                     "Success", JOptionPane.INFORMATION_MESSAGE);
             dispose();
         } catch (SQLException ex) {
+            candidate.close();
             JOptionPane.showMessageDialog(this,
                     "Failed to connect: " + ex.getMessage(),
                     "Connection Error", JOptionPane.ERROR_MESSAGE);
@@ -142,17 +145,42 @@ public class DBConnectionDialog extends JDialog {
     }
 
     /**
-     * Displays the dialog and returns a valid database connection if successful.
+     * Builds the MySQL JDBC URL for the given host and database.
+     * <p>
+     * Besides disabling SSL, the URL enables {@code rewriteBatchedStatements} so that
+     * JDBC batches (see {@link MovieDatabaseManager#addMovies(java.util.Collection)}) are
+     * sent as multi-row statements instead of one round trip per row, and
+     * {@code useCursorFetch} so that a statement's fetch size is honoured with a server-side
+     * cursor (see {@link MovieDatabaseManager#streamAllMovies()}). {@code useServerPrepStmts}
+     * prepares statements on the server, which pays off together with the statement cache of
+     * {@link ConnectionPool}: each query is parsed and planned once per connection and later
+     * calls only send the parameters.
+     * </p>
+     *
+     * @param host   the database host (optionally with {@code :port})
+     * @param dbName the database (schema) name
+     * @return the JDBC URL
+     */
+    static String buildUrl(String host, String dbName) {
+        return "jdbc:mysql://" + host + "/" + dbName
+                + "?useSSL=false"
+                + "&rewriteBatchedStatements=true"
+                + "&useCursorFetch=true"
+                + "&useServerPrepStmts=true";
+    }
+
+    /**
+     * Displays the dialog and returns a connection pool for the database if successful.
      * <p>
      * If the user cancels or the connection fails, this method returns {@code null}.
      * </p>
      *
      * @param parent the parent frame for dialog positioning
-     * @return a valid {@link Connection} object if connected successfully; otherwise {@code null}
+     * @return a verified {@link ConnectionPool} if connected successfully; otherwise {@code null}
      */
-    public static Connection showDialog(Frame parent) {
+    public static ConnectionPool showDialog(Frame parent) {
         DBConnectionDialog dialog = new DBConnectionDialog(parent);
         dialog.setVisible(true);
-        return dialog.connection;
+        return dialog.pool;
     }
 }
@@ -0,0 +1,281 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * A {@link MovieRepository} that keeps all movies in memory and persists every change to a
+ * local journal file.
+ * <p>
+ * Reads are served from memory exactly like {@link InMemoryMovieRepository}. Each write is
+ * appended to the journal as one line per movie before it is applied in memory, so the data
+ * survives a restart without a database server. If the journal cannot be written, the change
+ * is not applied and is reported as failed.
+ * </p>
+ *
+ * <p><b>File Format:</b></p>
+ * UTF-8 text, one tab-separated record per line:
+ * <ul>
+ *     <li>{@code P id title year director rating runtime votes watched} — insert or replace a movie.</li>
+ *     <li>{@code D id} — delete a movie.</li>
+ *     <li>{@code N id} — the next ID to assign is at least {@code id}.</li>
+ * </ul>
+ * Tabs, line breaks and backslashes in text are escaped with a backslash; {@code \N} stands
+ * for {@code null}. A malformed line, e.g. a partial last line after a crash during a write,
+ * is skipped and the journal is compacted on open, so later records are not appended to it.
+ *
+ * <p><b>Compaction:</b></p>
+ * Updates and deletes make the journal grow beyond the live data. When it is opened with
+ * more than twice as many records as movies (plus {@link #COMPACT_MIN_RECORDS}), and whenever
+ * {@link #compact()} is called, it is rewritten to contain only the current movies.
+ *
+ * <p><b>Concurrency:</b></p>
+ * Reads are lock-free; writes are serialized so the journal and memory apply changes in the
+ * same order. Only one repository instance may use a journal file at a time.
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * try (FileMovieRepository repo = new FileMovieRepository(Path.of("movies.journal"))) {
+ *     repo.addMovie(movie);
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class FileMovieRepository extends InMemoryMovieRepository implements AutoCloseable {
+
+    /** Number of superseded records tolerated in addition to twice the movie count before compacting on open. */
+    public static final int COMPACT_MIN_RECORDS = 1_000;
+
+    private final Path file;
+    private BufferedWriter journal;
+
+    /** Number of records in the journal, live or superseded. */
+    private long records;
+
+    /** Whether the journal contained a malformed line when it was loaded. */
+    private boolean damaged;
+
+    /**
+     * Opens a journal file, creating it if it does not exist, and loads its movies.
+     *
+     * @param file the journal file
+     * @throws IOException if the file cannot be read, compacted or opened for appending
+     */
+    public FileMovieRepository(Path file) throws IOException {
+        this.file = file;
+        load();
+        if (damaged || records > 2L * size() + COMPACT_MIN_RECORDS) {
+            rewrite();
+        }
+        journal = openForAppend();
+    }
+
+    // ==================== WRITE OPERATIONS ====================
+
+    @Override
+    public synchronized Movie addMovie(Movie m) { return super.addMovie(m); }
+
+    @Override
+    public synchronized void updateMovie(Movie m) { super.updateMovie(m); }
+
+    @Override
+    public synchronized void deleteMovie(int id) { super.deleteMovie(id); }
+
+    @Override
+    public synchronized BulkInsertResult addMovies(Collection<Movie> movies) { return super.addMovies(movies); }
+
+    @Override
+    public synchronized boolean updateMovies(Collection<Movie> movies) { return super.updateMovies(movies); }
+
+    @Override
+    public synchronized int deleteMovies(int[] ids) { return super.deleteMovies(ids); }
+
+    /**
+     * Appends the change to the journal as a single write and flushes it to the operating system.
+     */
+    @Override
+    protected void beforeChange(List<Movie> stored, int[] removed) throws IOException {
+        if (journal == null) throw new IOException("Repository is closed: " + file);
+        StringBuilder out = new StringBuilder(stored.size() * 64 + removed.length * 8);
+        for (Movie m : stored) appendMovie(out, m);
+        for (int id : removed) out.append("D\t").append(id).append('\n');
+        journal.write(out.toString());
+        journal.flush();
+        records += stored.size() + removed.length;
+    }
+
+    // ==================== COMPACTION ====================
+
+    /**
+     * Rewrites the journal to contain only the current movies.
+     * <p>
+     * The new content is written to a temporary file that then replaces the journal, so a
+     * crash during compaction leaves the old journal intact.
+     * </p>
+     *
+     * @throws IOException if the journal cannot be rewritten; it then stays as it was
+     */
+    public synchronized void compact() throws IOException {
+        if (journal == null) throw new IOException("Repository is closed: " + file);
+        journal.close();
+        journal = null;
+        try {
+            rewrite();
+        } finally {
+            journal = openForAppend();
+        }
+    }
+
+    /** Writes the current movies to a temporary file and moves it over the journal. */
+    private void rewrite() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<Movie> all = getAllMovies();
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write("N\t" + peekNextId() + "\n");
+            StringBuilder line = new StringBuilder(128);
+            for (Movie m : all) {
+                line.setLength(0);
+                appendMovie(line, m);
+                out.write(line.toString());
+            }
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        records = all.size() + 1;
+    }
+
+    /** @return the number of records in the journal, including superseded ones */
+    public synchronized long getRecordCount() { return records; }
+
+    /** @return the journal file */
+    public Path getFile() { return file; }
+
+    /**
+     * Closes the journal. Further writes fail; reads keep working on the in-memory copy.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal == null) return;
+        journal.close();
+        journal = null;
+    }
+
+    // ==================== FILE FORMAT ====================
+
+    /** Replays the journal into memory. */
+    private void load() throws IOException {
+        TreeMap<Integer, Movie> movies = new TreeMap<>();
+        int nextId = 1;
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                int lineNumber = 0;
+                while ((line = in.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isEmpty()) continue;
+                    String[] f = line.split("\t", -1);
+                    try {
+                        switch (f[0]) {
+                            case "P":
+                                Movie m = new Movie(Integer.parseInt(f[1]), unescape(f[2]), Integer.parseInt(f[3]),
+                                        unescape(f[4]), Double.parseDouble(f[5]), Integer.parseInt(f[6]),
+                                        Integer.parseInt(f[7]), parseBoolean(f[8]));
+                                movies.put(m.getId(), m);
+                                nextId = Math.max(nextId, m.getId() + 1);
+                                break;
+                            case "D":
+                                movies.remove(Integer.parseInt(f[1]));
+                                break;
+                            case "N":
+                                nextId = Math.max(nextId, Integer.parseInt(f[1]));
+                                break;
+                            default:
+                                throw new IllegalArgumentException("unknown record type");
+                        }
+                        records++;
+                    } catch (RuntimeException e) {
+                        damaged = true;
+                        System.err.println("Skipping malformed journal line " + lineNumber + " in " + file + ": " + e);
+                    }
+                }
+            }
+        }
+        restore(movies.values(), nextId);
+    }
+
+    private BufferedWriter openForAppend() throws IOException {
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    /** Appends the {@code P} record of a movie, including its line break. */
+    private static void appendMovie(StringBuilder out, Movie m) {
+        out.append("P\t").append(m.getId())
+                .append('\t').append(escape(m.getTitle()))
+                .append('\t').append(m.getYear())
+                .append('\t').append(escape(m.getDirector()))
+                .append('\t').append(m.getRating())
+                .append('\t').append(m.getRuntimeMinutes())
+                .append('\t').append(m.getVotes())
+                .append('\t').append(m.isWatched())
+                .append('\n');
+    }
+
+    private static boolean parseBoolean(String text) {
+        if (text.equals("true")) return true;
+        if (text.equals("false")) return false;
+        throw new IllegalArgumentException("not a boolean: " + text);
+    }
+
+    private static String escape(String text) {
+        if (text == null) return "\\N";
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '\t': out.append("\\t"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                default: out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String unescape(String text) {
+        if (text.equals("\\N")) return null;
+        if (text.indexOf('\\') < 0) return text;
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == text.length()) {
+                out.append(c);
+                continue;
+            }
+            char next = text.charAt(++i);
+            switch (next) {
+                case 't': out.append('\t'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                default: out.append(next);
+            }
+        }
+        return out.toString();
+    }
+}
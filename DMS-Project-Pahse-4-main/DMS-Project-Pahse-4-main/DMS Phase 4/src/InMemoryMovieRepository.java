@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * A {@link MovieRepository} that keeps all movies in a concurrent map in memory.
+ * <p>
+ * Needs no database server, which makes it suitable for demos, development and as a
+ * baseline in benchmarks. Data is lost when the program exits; see
+ * {@link FileMovieRepository} for a variant that persists it.
+ * </p>
+ *
+ * <p><b>Concurrency:</b></p>
+ * Movies are kept in a {@link ConcurrentSkipListMap} ordered by ID. Reads never block and
+ * single-movie writes are atomic per movie. Bulk operations are applied movie by movie, so
+ * a concurrent reader may see part of a batch. IDs are assigned from an atomic counter and
+ * are never reused, like an {@code AUTO_INCREMENT} column.
+ *
+ * <p>Movies are copied on the way in and out, so callers may modify their objects freely.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * MovieRepository repo = new InMemoryMovieRepository();
+ * repo.addMovies(Arrays.asList(movies));
+ * new MovieGUI(repo);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class InMemoryMovieRepository implements MovieRepository {
+
+    private static final int[] NO_IDS = new int[0];
+
+    /** All movies by ID, in ascending ID order. */
+    private final ConcurrentSkipListMap<Integer, Movie> movies = new ConcurrentSkipListMap<>();
+
+    /** The ID assigned to the next inserted movie. */
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    // ==================== CRUD OPERATIONS ====================
+
+    @Override
+    public ArrayList<Movie> getAllMovies() {
+        ArrayList<Movie> result = new ArrayList<>(movies.size());
+        for (Movie m : movies.values()) {
+            result.add(new Movie(m));
+        }
+        return result;
+    }
+
+    @Override
+    public Movie getMovieById(int id) {
+        Movie m = movies.get(id);
+        return m == null ? null : new Movie(m);
+    }
+
+    @Override
+    public Movie addMovie(Movie m) {
+        Movie copy = new Movie(m);
+        copy.setId(nextId.getAndIncrement());
+        try {
+            beforeChange(List.of(copy), NO_IDS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        movies.put(copy.getId(), copy);
+        m.setId(copy.getId());
+        return m;
+    }
+
+    @Override
+    public void updateMovie(Movie m) {
+        if (!movies.containsKey(m.getId())) return;
+        Movie copy = new Movie(m);
+        try {
+            beforeChange(List.of(copy), NO_IDS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        movies.replace(copy.getId(), copy);
+    }
+
+    @Override
+    public void deleteMovie(int id) {
+        if (!movies.containsKey(id)) return;
+        try {
+            beforeChange(List.of(), new int[]{id});
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        movies.remove(id);
+    }
+
+    // ==================== BULK OPERATIONS ====================
+
+    /**
+     * Inserts many movies. The result reports a single chunk covering the whole call.
+     *
+     * @param movies the movies to insert
+     * @return the generated IDs of all stored movies; empty if the change could not be stored
+     */
+    @Override
+    public BulkInsertResult addMovies(Collection<Movie> movies) {
+        long start = System.nanoTime();
+        List<Movie> copies = new ArrayList<>(movies.size());
+        for (Movie m : movies) {
+            Movie copy = new Movie(m);
+            copy.setId(nextId.getAndIncrement());
+            copies.add(copy);
+        }
+        try {
+            beforeChange(copies, NO_IDS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new BulkInsertResult(NO_IDS, new long[0]);
+        }
+
+        int[] ids = new int[copies.size()];
+        int i = 0;
+        for (Movie m : movies) {
+            Movie copy = copies.get(i);
+            this.movies.put(copy.getId(), copy);
+            m.setId(copy.getId());
+            ids[i++] = copy.getId();
+        }
+        return new BulkInsertResult(ids, new long[]{System.nanoTime() - start});
+    }
+
+    @Override
+    public boolean updateMovies(Collection<Movie> movies) {
+        List<Movie> copies = new ArrayList<>(movies.size());
+        for (Movie m : movies) {
+            if (this.movies.containsKey(m.getId())) copies.add(new Movie(m));
+        }
+        try {
+            beforeChange(copies, NO_IDS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        for (Movie copy : copies) {
+            this.movies.replace(copy.getId(), copy);
+        }
+        return true;
+    }
+
+    @Override
+    public int deleteMovies(int[] ids) {
+        int[] present = Arrays.stream(ids).distinct().filter(movies::containsKey).toArray();
+        if (present.length == 0) return 0;
+        try {
+            beforeChange(List.of(), present);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+        int deleted = 0;
+        for (int id : present) {
+            if (movies.remove(id) != null) deleted++;
+        }
+        return deleted;
+    }
+
+    // ==================== STREAMING ====================
+
+    /**
+     * Streams copies of all movies. The stream reflects concurrent changes made while it is
+     * consumed only as far as the map's weakly consistent iteration allows.
+     *
+     * @return a stream of all movies in ascending ID order
+     */
+    @Override
+    public Stream<Movie> streamAllMovies() {
+        return movies.values().stream().map(Movie::new);
+    }
+
+    // ==================== EXTENSION POINTS ====================
+
+    /**
+     * Called before a change is applied to the map. The default does nothing; subclasses
+     * persist the change here. Throwing aborts the change, which is then reported as failed.
+     * <p>
+     * Writers that need the map and their own record of it to stay in the same order must
+     * serialize their write operations themselves.
+     * </p>
+     *
+     * @param stored  copies of the movies about to be inserted or replaced, with their IDs set
+     * @param removed the IDs of the movies about to be deleted
+     * @throws IOException if the change cannot be persisted
+     */
+    protected void beforeChange(List<Movie> stored, int[] removed) throws IOException {}
+
+    /**
+     * Replaces the content of the repository with previously persisted movies, without
+     * calling {@link #beforeChange(List, int[])}.
+     *
+     * @param restored the movies to hold; they are stored as given, not copied
+     * @param nextId   the ID to assign to the next inserted movie
+     */
+    protected void restore(Collection<Movie> restored, int nextId) {
+        movies.clear();
+        for (Movie m : restored) {
+            movies.put(m.getId(), m);
+        }
+        this.nextId.set(nextId);
+    }
+
+    /** @return the ID that will be assigned to the next inserted movie */
+    protected int peekNextId() { return nextId.get(); }
+
+    /** @return the number of stored movies */
+    public int size() { return movies.size(); }
+}
@@ -0,0 +1,132 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size histogram of latencies in nanoseconds, in the style of HdrHistogram.
+ * <p>
+ * Values are counted in log-linear buckets: every power-of-two range is split into
+ * {@value #SUB_BUCKETS} equal sub-buckets, so each recorded value is known to within about
+ * 3% however large it is, and the whole range from 1 ns to about 18 minutes fits into fewer
+ * than 1,200 counters. Larger values are counted in the top bucket. Recording is lock-free and
+ * allocation-free: one atomic increment per bucket, sum and maximum.
+ * </p>
+ *
+ * <p>Percentiles read while other threads are recording reflect a point close to the call.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * LatencyHistogram h = new LatencyHistogram();
+ * long start = System.nanoTime();
+ * doWork();
+ * h.record(System.nanoTime() - start);
+ * System.out.println("p99 " + h.getValueAtPercentile(99) / 1000 + " us");
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    /** Number of linear sub-buckets per power of two; determines the precision. */
+    public static final int SUB_BUCKETS = 32;
+
+    /** Largest value counted exactly; larger values are counted as this value. */
+    public static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int BUCKET_COUNT = index(MAX_TRACKABLE_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Records one value.
+     *
+     * @param nanos the latency in nanoseconds; negative values are counted as {@code 0}
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_TRACKABLE_NANOS));
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    // ==================== READING ====================
+
+    /** @return the number of recorded values */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) count += counts.get(i);
+        return count;
+    }
+
+    /** @return the largest recorded value, or {@code 0} if none was recorded */
+    public long getMax() { return max.get(); }
+
+    /** @return the mean of the recorded values, or {@code 0} if none was recorded */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Returns the value below or at which the given share of recorded values lie.
+     *
+     * @param percentile a percentile between 0 and 100
+     * @return the highest value in the bucket holding that percentile, never more than
+     *         {@link #getMax()}; {@code 0} if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        return getValuesAtPercentiles(percentile)[0];
+    }
+
+    /**
+     * Returns several percentiles computed from one pass over the same counts.
+     *
+     * @param percentiles percentiles between 0 and 100, in any order
+     * @return the value at each percentile, in the order given
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long highest = max.get();
+
+        long[] values = new long[percentiles.length];
+        if (total == 0) return values;
+        for (int p = 0; p < percentiles.length; p++) {
+            double share = Math.max(0, Math.min(100, percentiles[p]));
+            long rank = Math.max(1, (long) Math.ceil(share / 100 * total));
+            long seen = 0;
+            int i = 0;
+            while (i < BUCKET_COUNT - 1 && (seen += snapshot[i]) < rank) i++;
+            values[p] = Math.min(highestEquivalent(i), highest);
+        }
+        return values;
+    }
+
+    // ==================== BUCKETS ====================
+
+    /** @return the bucket of a value between 0 and {@link #MAX_TRACKABLE_NANOS} */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /** @return the largest value counted in a bucket */
+    private static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
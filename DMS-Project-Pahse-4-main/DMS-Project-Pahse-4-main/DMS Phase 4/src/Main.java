@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
 /**
  * The main entry point for the Data Management System (DMS) application.
  * <p>
@@ -9,7 +13,10 @@
  * <ul>
  *     <li>Starts the DMS application execution.</li>
  *     <li>Handles the initial database connection setup through {@link DBConnectionDialog}.</li>
+ *     <li>Brings the database schema up to date through {@link SchemaMigrator}.</li>
  *     <li>Initializes the {@link MovieDatabaseManager} to manage movie records once connected.</li>
+ *     <li>Alternatively runs without a database server on an {@link InMemoryMovieRepository},
+ *         a {@link FileMovieRepository} or a {@link SegmentMovieRepository}, selected on the command line.</li>
  * </ul>
  *
  * <p><b>Dependencies:</b> Requires the following classes to function:</p>
@@ -20,15 +27,15 @@
  * </ul>
  *
  * <p><b>Error Handling:</b></p>
- * If the user cancels the connection dialog or fails to connect, the program
- * safely terminates with a status message in the console.
+ * If the user cancels the connection dialog, fails to connect or the schema cannot be
+ * brought up to date, the program safely terminates with a status message in the console.
  *
  * <p><b>Example Usage:</b></p>
  * <pre>{@code
- * // Run the DMS application
- * public static void main(String[] args) {
- *     Main.main(args);
- * }
+ * java Main                        // MySQL, via the connection dialog
+ * java Main --memory               // in memory, nothing is saved
+ * java Main --file movies.journal  // local journal file
+ * java Main --segment moviestore   // embedded segment store
  * }</pre>
  *
  * @author YourName
@@ -40,26 +47,72 @@ public class Main {
      * Launches the Data Management System application.
      * <p>
      * This method first opens a connection dialog using {@link DBConnectionDialog}.
-     * If a valid database connection is obtained, it initializes a
-     * {@link MovieDatabaseManager} and launches the {@link MovieGUI}.
+     * If a valid database connection is obtained, it applies pending schema migrations,
+     * initializes a {@link MovieDatabaseManager} backed by the resulting {@link ConnectionPool}
+     * and launches the {@link MovieGUI}. If a required migration fails, the program stops,
+     * because every query relies on the columns the migrations add.
      * </p>
      *
-     * @param args command-line arguments (not used in this application)
+     * @param args {@code --memory}, {@code --file <path>} or {@code --segment <dir>} to run without a database server;
+     *             no arguments to connect to MySQL
      */
     public static void main(String[] args) {
         System.setProperty("sun.java2d.opengl", "true"); // Enables smoother GUI rendering
 
+        // Local backends need no connection dialog
+        if (args.length > 0) {
+            MovieRepository repo = openLocalRepository(args);
+            if (repo != null) new MovieGUI(repo);
+            return;
+        }
+
         // Display connection dialog
-        java.sql.Connection connection = DBConnectionDialog.showDialog(null);
+        ConnectionPool pool = DBConnectionDialog.showDialog(null);
 
         // Stop execution if no connection was established
-        if (connection == null) {
+        if (pool == null) {
             System.out.println("No database connection. Program exiting.");
             return;
         }
 
+        // Create or upgrade the schema
+        try {
+            int applied = new SchemaMigrator(pool).migrate();
+            if (applied > 0) System.out.println("Applied " + applied + " schema migration(s).");
+        } catch (SQLException e) {
+            System.err.println("Schema migration failed: " + e.getMessage());
+            e.printStackTrace();
+            System.out.println("Database schema is not up to date. Program exiting.");
+            pool.close();
+            return;
+        }
+
         // Start application components
-        MovieDatabaseManager db = new MovieDatabaseManager(connection);
+        MovieDatabaseManager db = new MovieDatabaseManager(pool);
         new MovieGUI(db);
     }
+
+    /**
+     * Opens the repository selected by the command-line arguments.
+     *
+     * @param args {@code --memory}, {@code --file <path>} or {@code --segment <dir>}
+     * @return the repository, or {@code null} if the arguments are invalid or the file cannot be opened
+     */
+    private static MovieRepository openLocalRepository(String[] args) {
+        if (args[0].equals("--memory")) {
+            return new InMemoryMovieRepository();
+        }
+        if ((args[0].equals("--file") || args[0].equals("--segment")) && args.length > 1) {
+            try {
+                return args[0].equals("--file")
+                        ? new FileMovieRepository(Path.of(args[1]))
+                        : new SegmentMovieRepository(Path.of(args[1]));
+            } catch (IOException e) {
+                System.err.println("Cannot open " + args[1] + ": " + e.getMessage());
+                return null;
+            }
+        }
+        System.err.println("Usage: Main [--memory | --file <path> | --segment <dir>]");
+        return null;
+    }
 }
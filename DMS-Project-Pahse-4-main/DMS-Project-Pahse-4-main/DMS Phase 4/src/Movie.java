@@ -39,6 +39,13 @@ public class Movie {
     private int votes;             // Non-negative
     private boolean watched;
 
+    /**
+     * Version of the stored row this object was read from, used by
+     * {@link MovieRepository#updateMovieIfCurrent(Movie)} to detect concurrent changes.
+     * {@code 0} for movies that have not been read from a repository that tracks versions.
+     */
+    private int version;
+
     // ==================== CONSTRUCTORS ====================
 
     /**
@@ -91,6 +98,17 @@ public class Movie {
         this.watched = watched;
     }
 
+    /**
+     * Creates a copy of another {@code Movie}, including its database ID and version.
+     *
+     * @param other the movie to copy
+     */
+    public Movie(Movie other) {
+        this(other.id, other.title, other.year, other.director, other.rating,
+                other.runtimeMinutes, other.votes, other.watched);
+        this.version = other.version;
+    }
+
     /** Default no-argument constructor. */
     public Movie() {}
 
@@ -120,6 +138,9 @@ public class Movie {
     /** @return {@code true} if the movie has been watched; otherwise {@code false} */
     public boolean isWatched() { return watched; }
 
+    /** @return the version of the stored row this movie was read from */
+    public int getVersion() { return version; }
+
     // ==================== SETTERS ====================
 
     public void setId(int id) { this.id = id; }
@@ -130,6 +151,7 @@ public class Movie {
     public void setRuntimeMinutes(int runtimeMinutes) { this.runtimeMinutes = runtimeMinutes; }
     public void setVotes(int votes) { this.votes = votes; }
     public void setWatched(boolean watched) { this.watched = watched; }
+    public void setVersion(int version) { this.version = version; }
 
     // ==================== METHODS ====================
 
@@ -147,6 +169,16 @@ public class Movie {
      * @return the calculated scariness score (rounded to one decimal place, range 0–10)
      */
     public double getScariness() {
+        return scariness(rating, votes, runtimeMinutes, watched);
+    }
+
+    /**
+     * Calculates the scariness score from raw field values, as described in {@link #getScariness()}.
+     * Lets column-oriented code such as {@link ColumnarCatalog} score movies without creating objects.
+     *
+     * @return the scariness score (rounded to one decimal place, range 0–10)
+     */
+    static double scariness(double rating, int votes, int runtimeMinutes, boolean watched) {
         double score = rating;
         score += Math.min(votes / 500000.0, 2);
         if (runtimeMinutes > 120) score += 1;
@@ -0,0 +1,268 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, expiring cache of {@link Movie} rows keyed by ID, used by
+ * {@link MovieDatabaseManager#getMovieById(int)} as a read-through cache.
+ * <p>
+ * Entries are kept in least-recently-used order and expire a fixed time after they were
+ * loaded. Once the cache is full, a newly loaded movie is only admitted if it has been
+ * requested more often than the entry it would evict (TinyLFU admission). Access counts
+ * are kept approximately in a small count-min sketch that is halved periodically, so
+ * one-off lookups, e.g. from a scan, cannot flush movies that are looked up repeatedly.
+ * </p>
+ *
+ * <p><b>Consistency:</b></p>
+ * Writes made through the owning {@link MovieDatabaseManager} invalidate the affected
+ * entries. A load that overlaps an invalidation is not stored (see {@link #stamp()}), so a
+ * stale row never outlives the write that replaced it. Changes made by other clients are
+ * picked up when the entry expires.
+ *
+ * <p>Movies are copied on the way in and out, so callers may modify returned objects freely.</p>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class MovieCache {
+
+    /** Default maximum number of cached movies. */
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    /** Default time a cached movie stays valid after it was loaded. */
+    public static final long DEFAULT_TTL_MILLIS = 60_000;
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Cached movies in access order, eldest first. Guarded by {@link #lock}. */
+    private final LinkedHashMap<Integer, Entry> entries;
+
+    /** Count-min sketch of access frequencies, {@link #SKETCH_DEPTH} rows of {@code sketchWidth} counters. */
+    private final byte[] sketch;
+    private final int sketchMask;
+    private final int sampleSize;
+    private int samples;
+
+    /** Incremented by every invalidation; loads that started before a change are not stored. */
+    private long invalidations;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    /**
+     * Creates a cache with the default size and time to live.
+     */
+    public MovieCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * Creates a cache with the given bounds.
+     *
+     * @param maxSize   maximum number of cached movies (at least 1)
+     * @param ttlMillis how long a movie stays valid after it was loaded (at least 1)
+     * @throws IllegalArgumentException if either bound is less than 1
+     */
+    public MovieCache(int maxSize, long ttlMillis) {
+        if (maxSize < 1) throw new IllegalArgumentException("Cache size must be at least 1.");
+        if (ttlMillis < 1) throw new IllegalArgumentException("Time to live must be at least 1 ms.");
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1 << 16), 0.75f, true);
+
+        int width = Integer.highestOneBit(Math.max(16, maxSize * 2 - 1)) << 1;
+        this.sketch = new byte[SKETCH_DEPTH * width];
+        this.sketchMask = width - 1;
+        this.sampleSize = 10 * maxSize;
+    }
+
+    // ==================== LOOKUP / STORE ====================
+
+    /**
+     * Looks up a movie and records the access for admission decisions.
+     *
+     * @param id the movie ID
+     * @return a copy of the cached movie, or {@code null} if it is absent or expired
+     */
+    public Movie get(int id) {
+        lock.lock();
+        try {
+            recordAccess(id);
+            Entry e = entries.get(id);
+            if (e != null && e.expiresAt - System.nanoTime() > 0) {
+                hits++;
+                return new Movie(e.movie);
+            }
+            if (e != null) entries.remove(id);
+            misses++;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a token to pass to {@link #put(Movie, long)} after loading a movie,
+     * so the load is discarded if an invalidation happened in between.
+     *
+     * @return the current invalidation stamp
+     */
+    public long stamp() {
+        lock.lock();
+        try {
+            return invalidations;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a freshly loaded movie, subject to the admission policy.
+     *
+     * @param m     the movie as read from the database
+     * @param stamp the value of {@link #stamp()} taken before the load started
+     */
+    public void put(Movie m, long stamp) {
+        lock.lock();
+        try {
+            if (stamp != invalidations) return;
+            Integer id = m.getId();
+            if (!entries.containsKey(id) && entries.size() >= maxSize && !makeRoomFor(id)) {
+                rejections++;
+                return;
+            }
+            entries.put(id, new Entry(new Movie(m), System.nanoTime() + ttlMillis * 1_000_000));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the least recently used entry if it has expired or is accessed less often than the candidate.
+     *
+     * @return {@code true} if an entry was evicted
+     */
+    private boolean makeRoomFor(int candidate) {
+        Iterator<Map.Entry<Integer, Entry>> eldestFirst = entries.entrySet().iterator();
+        Map.Entry<Integer, Entry> victim = eldestFirst.next();
+        boolean expired = victim.getValue().expiresAt - System.nanoTime() <= 0;
+        if (!expired && frequency(candidate) <= frequency(victim.getKey())) return false;
+        eldestFirst.remove();
+        evictions++;
+        return true;
+    }
+
+    // ==================== INVALIDATION ====================
+
+    /**
+     * Removes a movie after it was changed or deleted.
+     *
+     * @param id the movie ID
+     */
+    public void invalidate(int id) {
+        lock.lock();
+        try {
+            invalidations++;
+            entries.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes several movies after a bulk change.
+     *
+     * @param ids the movie IDs
+     */
+    public void invalidate(int[] ids) {
+        lock.lock();
+        try {
+            invalidations++;
+            for (int id : ids) entries.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes all movies, e.g. after a change whose affected IDs are unknown. */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            invalidations++;
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== FREQUENCY SKETCH ====================
+
+    /** Counts one access to {@code id}, halving all counters once enough accesses have been sampled. */
+    private void recordAccess(int id) {
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int i = slot(id, row);
+            if (sketch[i] < MAX_FREQUENCY) sketch[i]++;
+        }
+        if (++samples >= sampleSize) {
+            for (int i = 0; i < sketch.length; i++) sketch[i] >>= 1;
+            samples /= 2;
+        }
+    }
+
+    /** @return the estimated number of recent accesses to {@code id} */
+    private int frequency(int id) {
+        int min = MAX_FREQUENCY;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            min = Math.min(min, sketch[slot(id, row)]);
+        }
+        return min;
+    }
+
+    /** @return the index of the counter for {@code id} in the given sketch row */
+    private int slot(int id, int row) {
+        int h = id * (0x9E3779B9 + 2 * row);
+        h ^= h >>> 16;
+        return row * (sketchMask + 1) + (h & sketchMask);
+    }
+
+    // ==================== STATUS ====================
+
+    /** @return the maximum number of cached movies */
+    public int getMaxSize() { return maxSize; }
+
+    /** @return how long a movie stays valid after it was loaded, in milliseconds */
+    public long getTtlMillis() { return ttlMillis; }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return hits, misses, evictions, rejected admissions and the current size
+     */
+    public MovieCacheStats getStats() {
+        lock.lock();
+        try {
+            return new MovieCacheStats(hits, misses, evictions, rejections, entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A cached movie and the time it expires, in {@link System#nanoTime()} units. */
+    private static final class Entry {
+        final Movie movie;
+        final long expiresAt;
+
+        Entry(Movie movie, long expiresAt) {
+            this.movie = movie;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * A point-in-time snapshot of the counters of a {@link MovieCache}.
+ * <p>
+ * A rejection means a loaded movie was not stored because the admission policy judged it
+ * less popular than the entry it would have replaced.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * MovieCacheStats stats = db.getMovieCacheStats();
+ * System.out.printf("hit ratio %.1f%%%n", stats.getHitRatio() * 100);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class MovieCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long rejections;
+    private final int size;
+
+    /**
+     * Creates a snapshot from the given counters.
+     *
+     * @param hits       lookups answered from the cache
+     * @param misses     lookups that had to go to the database
+     * @param evictions  entries removed to make room for more popular ones
+     * @param rejections loaded movies not admitted to the cache
+     * @param size       movies currently cached
+     */
+    public MovieCacheStats(long hits, long misses, long evictions, long rejections, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.rejections = rejections;
+        this.size = size;
+    }
+
+    /** @return the number of lookups answered from the cache */
+    public long getHits() { return hits; }
+
+    /** @return the number of lookups that had to go to the database */
+    public long getMisses() { return misses; }
+
+    /** @return the number of entries removed to make room for more popular ones */
+    public long getEvictions() { return evictions; }
+
+    /** @return the number of loaded movies not admitted to the cache */
+    public long getRejections() { return rejections; }
+
+    /** @return the number of movies currently cached */
+    public int getSize() { return size; }
+
+    /** @return hits divided by all lookups, or {@code 0} if there were none */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit ratio), %d evictions, %d rejected, %d cached",
+                hits, misses, getHitRatio() * 100, evictions, rejections, size);
+    }
+}
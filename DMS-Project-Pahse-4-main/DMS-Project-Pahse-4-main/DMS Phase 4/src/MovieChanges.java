@@ -0,0 +1,58 @@
+import java.sql.Timestamp;
+import java.util.ArrayList;
+
+/**
+ * The movies inserted, updated or deleted since a change token, as returned by
+ * {@link MovieDatabaseManager#getMoviesChangedSince(Timestamp)}.
+ * <p>
+ * Applying a delta is idempotent: a movie may be reported again by the next delta, and
+ * callers should simply overwrite what they hold. Pass {@link #getToken()} to the next call.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * MovieChanges delta = db.getMoviesChangedSince(token);
+ * for (Movie m : delta.getChanged()) model.put(m.getId(), m);
+ * for (int id : delta.getDeletedIds()) model.remove(id);
+ * token = delta.getToken();
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class MovieChanges {
+
+    private final ArrayList<Movie> changed;
+    private final int[] deletedIds;
+    private final Timestamp token;
+
+    /**
+     * Creates a delta.
+     *
+     * @param changed    movies inserted or updated since the previous token
+     * @param deletedIds IDs of movies deleted since the previous token
+     * @param token      the token to pass to the next call
+     */
+    public MovieChanges(ArrayList<Movie> changed, int[] deletedIds, Timestamp token) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.token = token;
+    }
+
+    /** @return the movies inserted or updated since the previous token */
+    public ArrayList<Movie> getChanged() { return changed; }
+
+    /** @return the IDs of movies deleted since the previous token */
+    public int[] getDeletedIds() { return deletedIds.clone(); }
+
+    /** @return the token to pass to the next call */
+    public Timestamp getToken() { return token; }
+
+    /** @return {@code true} if nothing changed */
+    public boolean isEmpty() { return changed.isEmpty() && deletedIds.length == 0; }
+
+    @Override
+    public String toString() {
+        return String.format("%d changed, %d deleted", changed.size(), deletedIds.length);
+    }
+}
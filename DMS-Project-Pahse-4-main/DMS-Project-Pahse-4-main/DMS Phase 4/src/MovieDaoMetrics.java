@@ -0,0 +1,192 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, throughput, error and row counters for each operation of {@link MovieDatabaseManager}.
+ * <p>
+ * Every instrumented call records its elapsed time in a {@link LatencyHistogram} of its
+ * operation, together with whether it failed and how many rows it returned or affected.
+ * Recording costs two {@link System#nanoTime()} calls and a few atomic increments, so it
+ * stays switched on under production load.
+ * </p>
+ *
+ * <p><b>Reading the Metrics:</b></p>
+ * <ul>
+ *     <li>{@link #snapshot()} returns the cumulative {@link OperationStats} of every operation,
+ *         with p50, p90, p99 and p99.9 latencies.</li>
+ *     <li>{@link #startDump(Path, long)} appends a report to a local file at a fixed interval.
+ *         Each report lists the cumulative figures and the calls per second since the
+ *         previous report.</li>
+ * </ul>
+ *
+ * <p>All methods are thread-safe.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * db.getMetrics().startDump(Path.of("dao-metrics.log"), 60_000);
+ * ...
+ * OperationStats byId = db.getMetrics().snapshot().get("getMovieById");
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class MovieDaoMetrics {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final long createdAt = System.currentTimeMillis();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /** Background dump task; {@code null} while no dump is scheduled. Guarded by {@code this}. */
+    private ScheduledExecutorService dumper;
+
+    /** Calls per operation at the previous dump, for the interval rate. Guarded by {@code this}. */
+    private final Map<String, Long> callsAtLastDump = new TreeMap<>();
+    private long lastDumpAt = createdAt;
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Records a successful call.
+     *
+     * @param operation  the name of the operation
+     * @param startNanos the value of {@link System#nanoTime()} when the call started
+     * @param rows       the number of rows returned or affected
+     */
+    public void record(String operation, long startNanos, long rows) {
+        Operation op = operation(operation);
+        op.latency.record(System.nanoTime() - startNanos);
+        op.rows.add(rows);
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param operation  the name of the operation
+     * @param startNanos the value of {@link System#nanoTime()} when the call started
+     */
+    public void recordError(String operation, long startNanos) {
+        Operation op = operation(operation);
+        op.latency.record(System.nanoTime() - startNanos);
+        op.errors.increment();
+    }
+
+    private Operation operation(String name) {
+        Operation op = operations.get(name);
+        return op != null ? op : operations.computeIfAbsent(name, n -> new Operation());
+    }
+
+    // ==================== SNAPSHOTS ====================
+
+    /**
+     * Returns the current figures of every operation that has been called at least once.
+     *
+     * @return the statistics keyed by operation name, in alphabetical order
+     */
+    public Map<String, OperationStats> snapshot() {
+        long elapsed = System.currentTimeMillis() - createdAt;
+        Map<String, OperationStats> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Operation> e : new TreeMap<>(operations).entrySet()) {
+            result.put(e.getKey(), e.getValue().stats(e.getKey(), elapsed));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    // ==================== DUMPING ====================
+
+    /**
+     * Appends a report to {@code file} every {@code periodMillis}, replacing any earlier schedule.
+     * Failures to write are printed and retried at the next interval.
+     *
+     * @param file         the file to append to; created if missing
+     * @param periodMillis time between reports (at least 1)
+     * @throws IllegalArgumentException if {@code periodMillis} is less than 1
+     */
+    public synchronized void startDump(Path file, long periodMillis) {
+        if (periodMillis < 1) throw new IllegalArgumentException("Dump period must be at least 1 ms.");
+        stopDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "movie-dao-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(() -> {
+            try {
+                dump(file);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops the periodic report, if one is scheduled. */
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    /**
+     * Appends one report to a file right away.
+     *
+     * @param file the file to append to; created if missing
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void dump(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        Map<String, OperationStats> stats = snapshot();
+        double intervalSeconds = Math.max(1, now - lastDumpAt) / 1000.0;
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write("# " + LocalDateTime.now().format(TIMESTAMP) + ", latencies in ms");
+            out.newLine();
+            out.write(String.format("%-18s %10s %9s %8s %10s %9s %9s %9s %9s %9s %9s",
+                    "operation", "calls", "calls/s", "errors", "rows", "mean", "p50", "p90", "p99", "p99.9", "max"));
+            out.newLine();
+            for (OperationStats s : stats.values()) {
+                long previous = callsAtLastDump.getOrDefault(s.getOperation(), 0L);
+                out.write(String.format("%-18s %10d %9.1f %8d %10d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f",
+                        s.getOperation(), s.getCalls(), (s.getCalls() - previous) / intervalSeconds,
+                        s.getErrors(), s.getRows(), s.getMeanNanos() / 1e6, s.getP50Nanos() / 1e6,
+                        s.getP90Nanos() / 1e6, s.getP99Nanos() / 1e6, s.getP999Nanos() / 1e6, s.getMaxNanos() / 1e6));
+                out.newLine();
+                callsAtLastDump.put(s.getOperation(), s.getCalls());
+            }
+            out.newLine();
+        }
+        lastDumpAt = now;
+    }
+
+    // ==================== INTERNAL TYPES ====================
+
+    /** The live counters of one operation. */
+    private static final class Operation {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+
+        OperationStats stats(String name, long elapsedMillis) {
+            long[] p = latency.getValuesAtPercentiles(50, 90, 99, 99.9);
+            return new OperationStats(name, latency.getCount(), errors.sum(), rows.sum(), latency.getMean(),
+                    p[0], p[1], p[2], p[3], latency.getMax(), elapsedMillis);
+        }
+    }
+}
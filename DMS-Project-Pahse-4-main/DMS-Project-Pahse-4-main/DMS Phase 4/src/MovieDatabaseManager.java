@@ -1,5 +1,23 @@
 import java.sql.*;
+import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Handles all database operations (CRUD) for {@link Movie} objects.
@@ -12,19 +30,36 @@ import java.util.ArrayList;
  *
  * <p><b>Role in the System:</b></p>
  * Acts as the data access layer in the Data Management System (DMS), abstracting
- * all database communication for the GUI and other application layers.
+ * all database communication for the GUI and other application layers. It is the JDBC
+ * implementation of {@link MovieRepository}; the GUI can run on the other implementations
+ * without a database server.
+ *
+ * <p><b>Concurrency:</b></p>
+ * Every operation borrows its own connection from a {@link ConnectionPool} and returns it
+ * when done, so the manager can be shared safely between the GUI and background work.
+ * The SQL of every fixed query is built once, so the pool's per-connection statement cache
+ * (see {@link #getStatementCacheStats()}) can reuse the prepared statement on later calls.
+ * Single-row methods run in autocommit mode; to commit many changes together, use
+ * {@link #beginUnitOfWork(int)}. Every update increments the row's version, so editors
+ * working on the same movie can save with {@link #updateMovieIfCurrent(Movie)} and have
+ * lost updates detected without holding locks.
+ *
+ * <p><b>Failures:</b></p>
+ * Reads are retried with backoff after transient errors such as a dropped connection (see
+ * {@link #setRetryPolicy(RetryPolicy)}); writes are not. While the pool's circuit breaker
+ * is open, every call fails at once, and recovers by itself when the database is back.
  *
  * <p><b>Dependencies:</b></p>
  * <ul>
- *     <li>Requires an active {@link Connection} object (usually provided by {@link DBConnectionDialog}).</li>
+ *     <li>Requires a {@link ConnectionPool} (usually provided by {@link DBConnectionDialog}).</li>
  *     <li>Works closely with the {@link Movie} class to represent individual records.</li>
  * </ul>
  *
  * <p><b>Example Usage:</b></p>
  * <pre>{@code
- * Connection conn = DBConnectionDialog.showDialog(null);
- * if (conn != null) {
- *     MovieDatabaseManager db = new MovieDatabaseManager(conn);
+ * ConnectionPool pool = DBConnectionDialog.showDialog(null);
+ * if (pool != null) {
+ *     MovieDatabaseManager db = new MovieDatabaseManager(pool);
  *     ArrayList<Movie> allMovies = db.getAllMovies();
  * }
  * }</pre>
@@ -32,18 +67,72 @@ import java.util.ArrayList;
  * @author YourName
  * @version 1.0
  */
-public class MovieDatabaseManager {
+public class MovieDatabaseManager implements MovieRepository {
+
+    /** Default number of rows sent per JDBC batch and committed together by bulk operations. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    static final String INSERT_SQL =
+            "INSERT INTO movies (title, year, director, rating, runtimeMinutes, votes, watched) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /** Most rows per upsert statement; MySQL allows at most 65,535 placeholders per statement. */
+    private static final int MAX_UPSERT_CHUNK = 65_535 / 7;
+
+    private static final String SELECT_ALL_SQL = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies";
+
+    private static final String SELECT_BY_ID_SQL = SELECT_ALL_SQL + " WHERE id = ?";
+
+    static final String UPDATE_SQL = "UPDATE movies SET title = ?, year = ?, director = ?, rating = ?,"
+            + " runtimeMinutes = ?, votes = ?, watched = ?, version = version + 1 WHERE id = ?";
+
+    /** {@link #UPDATE_SQL} as a compare-and-set on the row version. */
+    private static final String UPDATE_IF_VERSION_SQL = UPDATE_SQL + " AND version = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM movies WHERE id = ?";
+
+    /** Pool from which each operation borrows a connection. */
+    private final ConnectionPool pool;
+
+    /** Default number of rows the server-side cursor returns per round trip when streaming. */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /** Number of rows per batch/commit used by bulk operations. */
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Number of rows fetched per round trip by {@link #streamAllMovies()}. */
+    private volatile int fetchSize = DEFAULT_FETCH_SIZE;
 
-    /** Active database connection used for executing SQL statements. */
-    private Connection conn;
+    /** Read-through cache for {@link #getMovieById(int)}; {@code null} when caching is off. */
+    private volatile MovieCache movieCache = new MovieCache();
+
+    /** Buffer for deferred {@link #updateMovie(Movie)} calls; {@code null} unless write-behind is on. */
+    private volatile WriteBehindBuffer writeBehind;
+
+    /** Whether {@code MATCH ... AGAINST} works on this database; {@code false} once it has failed. */
+    private volatile boolean fullTextAvailable = true;
+
+    /** In-process search index used when full-text search is unavailable; {@code null} until needed or after a write. */
+    private volatile MovieSearchIndex searchIndex;
+
+    /** Incremented after every local write; cached aggregates computed at an older version are stale. */
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    /** Cached aggregation results keyed by query. */
+    private final Map<String, CachedAggregate> aggregates = new ConcurrentHashMap<>();
+
+    /** How reads are retried after transient errors. */
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+    /** Latency, throughput, error and row counters per operation. */
+    private final MovieDaoMetrics metrics = new MovieDaoMetrics();
 
     /**
-     * Constructs a new {@code MovieDatabaseManager} using an existing database connection.
+     * Constructs a new {@code MovieDatabaseManager} backed by a connection pool.
      *
-     * @param connection an active {@link Connection} object for communicating with the database
+     * @param pool the {@link ConnectionPool} used to obtain database connections
      */
-    public MovieDatabaseManager(Connection connection) {
-        this.conn = connection;
+    public MovieDatabaseManager(ConnectionPool pool) {
+        this.pool = pool;
     }
 
     // ==================== CRUD OPERATIONS ====================
@@ -53,121 +142,1453 @@ public class MovieDatabaseManager {
      *
      * @return a list of all {@link Movie} records found in the database; an empty list if none exist
      */
+    @Override
     public ArrayList<Movie> getAllMovies() {
-        ArrayList<Movie> movies = new ArrayList<>();
-        String sql = "SELECT * FROM movies";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+        long start = System.nanoTime();
+        try {
+            ArrayList<Movie> movies = read(conn -> {
+                ArrayList<Movie> rows = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_SQL);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(MovieRowMapper.map(rs));
+                    }
+                }
+                return rows;
+            });
+            metrics.record("getAllMovies", start, movies.size());
+            return movies;
+        } catch (SQLException e) {
+            metrics.recordError("getAllMovies", start);
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
 
-            while (rs.next()) {
-                movies.add(new Movie(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getInt("year"),
-                        rs.getString("director"),
-                        rs.getDouble("rating"),
-                        rs.getInt("runtimeMinutes"),
-                        rs.getInt("votes"),
-                        rs.getBoolean("watched")
-                ));
-            }
+    /**
+     * Retrieves all movies, fetching only the requested columns.
+     * <p>
+     * Useful for list views that need a few fields of every row; only the selected
+     * properties of the returned movies are populated. The ID is always included.
+     * </p>
+     *
+     * @param fields the fields to fetch
+     * @return partially populated movies; an empty list if none exist
+     */
+    public ArrayList<Movie> getMovies(MovieField... fields) {
+        MovieField[] projection = withId(fields);
+        String sql = "SELECT " + MovieRowMapper.columns(null, projection) + " FROM movies";
 
+        try {
+            return read(conn -> {
+                ArrayList<Movie> movies = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(sql);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        movies.add(MovieRowMapper.map(rs, projection));
+                    }
+                }
+                return movies;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return movies;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Retrieves the ID, title and year of every movie, e.g. for list views.
+     *
+     * @return movies with only ID, title and year populated
+     */
+    public ArrayList<Movie> getMovieSummaries() {
+        return getMovies(MovieField.ID, MovieField.TITLE, MovieField.YEAR);
     }
 
     /**
      * Retrieves a single {@link Movie} by its unique database ID.
+     * <p>
+     * Recently read movies are answered from the {@link MovieCache} without a query;
+     * see {@link #setMovieCache(MovieCache)}.
+     * </p>
      *
      * @param id the unique identifier of the movie
      * @return a {@link Movie} object if found, or {@code null} if no record matches the ID
      */
+    @Override
     public Movie getMovieById(int id) {
-        String sql = "SELECT * FROM movies WHERE id = ?";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return new Movie(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getInt("year"),
-                        rs.getString("director"),
-                        rs.getDouble("rating"),
-                        rs.getInt("runtimeMinutes"),
-                        rs.getInt("votes"),
-                        rs.getBoolean("watched")
-                );
-            }
+        long start = System.nanoTime();
+        try {
+            Movie m = lookupMovieById(id);
+            metrics.record("getMovieById", start, m == null ? 0 : 1);
+            return m;
         } catch (SQLException e) {
+            metrics.recordError("getMovieById", start);
             e.printStackTrace();
         }
         return null;
     }
 
+    /** Answers a lookup from the write-behind buffer, the cache or the database, in that order. */
+    private Movie lookupMovieById(int id) throws SQLException {
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) {
+            Movie pending = buffer.lookup(id);
+            if (pending != null) return pending;
+        }
+
+        MovieCache cache = movieCache;
+        if (cache == null) return loadMovieById(id);
+
+        Movie cached = cache.get(id);
+        if (cached != null) return cached;
+
+        long stamp = cache.stamp();
+        Movie loaded = loadMovieById(id);
+        if (loaded != null) cache.put(loaded, stamp);
+        return loaded;
+    }
+
+    /** Reads a single movie from the database, bypassing the cache. */
+    private Movie loadMovieById(int id) throws SQLException {
+        return read(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? MovieRowMapper.map(rs) : null;
+                }
+            }
+        });
+    }
+
     /**
      * Inserts a new {@link Movie} into the database.
+     * <p>
+     * The ID generated by the database is stored on {@code m}, so callers can show the new
+     * row right away instead of reloading the table.
+     * </p>
      *
      * @param m the {@link Movie} object to insert
+     * @return {@code m} with its generated ID set, or {@code null} if the insert failed
      */
-    public void addMovie(Movie m) {
-        String sql = "INSERT INTO movies (title, year, director, rating, runtimeMinutes, votes, watched) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, m.getTitle());
-            stmt.setInt(2, m.getYear());
-            stmt.setString(3, m.getDirector());
-            stmt.setDouble(4, m.getRating());
-            stmt.setInt(5, m.getRuntimeMinutes());
-            stmt.setInt(6, m.getVotes());
-            stmt.setBoolean(7, m.isWatched());
+    @Override
+    public Movie addMovie(Movie m) {
+        long start = System.nanoTime();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(stmt, m);
             stmt.executeUpdate();
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    m.setId(keys.getInt(1));
+                    dataChanged();
+                    metrics.record("addMovie", start, 1);
+                    return m;
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        metrics.recordError("addMovie", start);
+        return null;
     }
 
     /**
      * Updates an existing {@link Movie} record in the database.
+     * <p>
+     * When write-behind is enabled (see {@link #enableWriteBehind(long, int)}), the update is
+     * only buffered and written with the next batch.
+     * </p>
+     * <p>
+     * Every update increments the row version, and the version on {@code m} is advanced with it,
+     * so {@code m} can later be passed to {@link #updateMovieIfCurrent(Movie)}. A buffered update
+     * advances it at once to the version the row will have after the flush.
+     * </p>
      *
      * @param m the {@link Movie} object containing updated information
      */
+    @Override
     public void updateMovie(Movie m) {
-        String sql = "UPDATE movies SET title = ?, year = ?, director = ?, rating = ?, runtimeMinutes = ?, votes = ?, watched = ? WHERE id = ?";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, m.getTitle());
-            stmt.setInt(2, m.getYear());
-            stmt.setString(3, m.getDirector());
-            stmt.setDouble(4, m.getRating());
-            stmt.setInt(5, m.getRuntimeMinutes());
-            stmt.setInt(6, m.getVotes());
-            stmt.setBoolean(7, m.isWatched());
-            stmt.setInt(8, m.getId());
-            stmt.executeUpdate();
+        long start = System.nanoTime();
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) {
+            buffer.submit(m);
+            metrics.record("updateMovie", start, 0);
+            return;
+        }
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(stmt, m);
+            int updated = stmt.executeUpdate();
+            if (updated == 1) m.setVersion(m.getVersion() + 1);
+            metrics.record("updateMovie", start, updated);
+        } catch (SQLException e) {
+            metrics.recordError("updateMovie", start);
+            e.printStackTrace();
+        }
+        invalidate(m.getId());
+    }
+
+    /**
+     * Updates a movie only if its row has not changed since {@code m} was read.
+     * <p>
+     * The update is one compare-and-set statement, {@code UPDATE ... WHERE id = ? AND version = ?},
+     * using {@link Movie#getVersion()}: no lock is held while the user edits, and no extra read
+     * is needed when nobody else has changed the row. On success the new version is stored on
+     * {@code m}. Otherwise the row is read once to tell a conflict from a deletion. Write-behind
+     * updates still pending for the movie are written first, so they count as a change.
+     * </p>
+     *
+     * @param m the edited movie, carrying the version it was read with
+     * @return the outcome, or {@code null} if the update failed
+     */
+    @Override
+    public UpdateResult updateMovieIfCurrent(Movie m) {
+        long start = System.nanoTime();
+        try {
+            WriteBehindBuffer buffer = writeBehind;
+            if (buffer != null && buffer.lookup(m.getId()) != null) buffer.flush();
+
+            int updated;
+            try (Connection conn = pool.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(UPDATE_IF_VERSION_SQL)) {
+                bindUpdate(stmt, m);
+                stmt.setInt(9, m.getVersion());
+                updated = stmt.executeUpdate();
+            }
+            invalidate(m.getId());
+            if (updated > 0) {
+                m.setVersion(m.getVersion() + 1);
+                metrics.record("updateMovieIfCurrent", start, updated);
+                return UpdateResult.updated(m);
+            }
+
+            Movie current = loadMovieById(m.getId());
+            metrics.record("updateMovieIfCurrent", start, 0);
+            return current != null ? UpdateResult.conflict(current) : UpdateResult.notFound(m.getId());
         } catch (SQLException e) {
+            metrics.recordError("updateMovieIfCurrent", start);
             e.printStackTrace();
+            return null;
         }
     }
 
+    /** Binds a movie to the parameters of {@link #UPDATE_SQL}. */
+    static void bindUpdate(PreparedStatement stmt, Movie m) throws SQLException {
+        bindInsert(stmt, 1, m);
+        stmt.setInt(8, m.getId());
+    }
+
     /**
      * Deletes a movie record from the database by its unique ID.
      *
      * @param id the unique identifier of the movie to delete
      */
+    @Override
     public void deleteMovie(int id) {
-        String sql = "DELETE FROM movies WHERE id = ?";
+        long start = System.nanoTime();
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) buffer.discard(id);
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            metrics.record("deleteMovie", start, stmt.executeUpdate());
+        } catch (SQLException e) {
+            metrics.recordError("deleteMovie", start);
+            e.printStackTrace();
+        }
+        invalidate(id);
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Retrieves the movies matching a query, filtered, sorted and limited by the database.
+     *
+     * @param query the filter, sort and limit criteria
+     * @return the matching movies in the requested order; an empty list if none match
+     */
+    public ArrayList<Movie> findMovies(MovieQuery query) {
+        try {
+            return read(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(query.toSql())) {
+                    query.bind(stmt);
+                    return readPage(stmt, query.getLimit() > 0 ? query.getLimit() : 1024);
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    // ==================== AGGREGATES ====================
+
+    /** Longest time a cached aggregate is reused without a local write, to pick up changes by other clients. */
+    public static final long AGGREGATE_MAX_AGE_MILLIS = 60_000;
+
+    /**
+     * Counts movies per release year.
+     *
+     * @return the counts in ascending year order, or {@code null} if the query failed
+     */
+    public CatalogStatistics.YearCounts getMovieCountsByYear() {
+        return aggregate("year", conn -> {
+            ArrayList<int[]> rows = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT year, COUNT(*) FROM movies GROUP BY year ORDER BY year");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) rows.add(new int[]{rs.getInt(1), rs.getInt(2)});
+            }
+            int[] years = new int[rows.size()];
+            int[] counts = new int[rows.size()];
+            for (int i = 0; i < years.length; i++) {
+                years[i] = rows.get(i)[0];
+                counts[i] = rows.get(i)[1];
+            }
+            return new CatalogStatistics.YearCounts(years, counts);
+        });
+    }
+
+    /**
+     * Computes the movie count, average rating and total votes of every director.
+     *
+     * @return one row per director in ascending order, or {@code null} if the query failed
+     */
+    public CatalogStatistics.DirectorSummaries getDirectorSummaries() {
+        return aggregate("director", conn -> {
+            ArrayList<String> directors = new ArrayList<>();
+            int[] counts = new int[64];
+            double[] ratings = new double[64];
+            long[] votes = new long[64];
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT director, COUNT(*), AVG(rating), SUM(votes) FROM movies GROUP BY director ORDER BY director");
+                 ResultSet rs = stmt.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    if (i == counts.length) {
+                        counts = Arrays.copyOf(counts, i * 2);
+                        ratings = Arrays.copyOf(ratings, i * 2);
+                        votes = Arrays.copyOf(votes, i * 2);
+                    }
+                    directors.add(rs.getString(1));
+                    counts[i] = rs.getInt(2);
+                    ratings[i] = rs.getDouble(3);
+                    votes[i] = rs.getLong(4);
+                    i++;
+                }
+            }
+            int n = directors.size();
+            return new CatalogStatistics.DirectorSummaries(directors.toArray(new String[0]),
+                    Arrays.copyOf(counts, n), Arrays.copyOf(ratings, n), Arrays.copyOf(votes, n));
+        });
+    }
+
+    /**
+     * Counts watched and unwatched movies.
+     *
+     * @return both counts, or {@code null} if the query failed
+     */
+    public CatalogStatistics.WatchedCounts getWatchedCounts() {
+        return aggregate("watched", conn -> {
+            int watched = 0;
+            int unwatched = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT watched, COUNT(*) FROM movies GROUP BY watched");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getBoolean(1)) watched = rs.getInt(2);
+                    else unwatched = rs.getInt(2);
+                }
+            }
+            return new CatalogStatistics.WatchedCounts(watched, unwatched);
+        });
+    }
+
+    /**
+     * Counts movies per rating bucket, splitting the 0–10 scale into equally wide buckets.
+     *
+     * @param buckets the number of buckets (at least 1), e.g. {@code 10} for one bucket per rating point
+     * @return the histogram, or {@code null} if the query failed
+     * @throws IllegalArgumentException if {@code buckets} is less than 1
+     */
+    public CatalogStatistics.RatingHistogram getRatingHistogram(int buckets) {
+        if (buckets < 1) throw new IllegalArgumentException("Histogram needs at least 1 bucket.");
+        return aggregate("rating:" + buckets, conn -> {
+            int[] counts = new int[buckets];
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT GREATEST(0, LEAST(FLOOR(rating * ? / 10), ?)) AS bucket, COUNT(*)"
+                    + " FROM movies GROUP BY bucket")) {
+                stmt.setInt(1, buckets);
+                stmt.setInt(2, buckets - 1);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) counts[rs.getInt(1)] += rs.getInt(2);
+                }
+            }
+            return new CatalogStatistics.RatingHistogram(counts);
+        });
+    }
+
+    /**
+     * Returns a cached aggregate if no local write happened since it was computed and it is
+     * younger than {@link #AGGREGATE_MAX_AGE_MILLIS}; otherwise runs the query and caches it.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T aggregate(String key, SqlQuery<T> query) {
+        long version = dataVersion.get();
+        CachedAggregate cached = aggregates.get(key);
+        if (cached != null && cached.version == version
+                && System.currentTimeMillis() - cached.computedAt <= AGGREGATE_MAX_AGE_MILLIS) {
+            return (T) cached.value;
+        }
+
+        try {
+            T value = read(query);
+            aggregates.put(key, new CachedAggregate(value, version));
+            return value;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** A query against a borrowed connection. */
+    private interface SqlQuery<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /** An aggregation result and the data version it was computed at. */
+    private static final class CachedAggregate {
+        final Object value;
+        final long version;
+        final long computedAt = System.currentTimeMillis();
+
+        CachedAggregate(Object value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+
+    // ==================== SEARCH ====================
+
+    /** Longest time the in-process search index is reused before it is rebuilt. */
+    public static final long SEARCH_INDEX_MAX_AGE_MILLIS = 30_000;
+
+    /** MySQL errors meaning no usable {@code FULLTEXT} index exists. */
+    private static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+    private static final int ER_TABLE_CANT_HANDLE_FT = 1214;
+
+    private static final String SEARCH_SQL = "SELECT " + MovieRowMapper.COLUMNS
+            + ", MATCH(title, director) AGAINST (? IN BOOLEAN MODE) AS score FROM movies"
+            + " WHERE MATCH(title, director) AGAINST (? IN BOOLEAN MODE) ORDER BY score DESC, id LIMIT ?";
+
+    /**
+     * Finds the movies whose title or director best match a free-text query.
+     * <p>
+     * Runs against the {@code FULLTEXT} index {@link MovieSchema#FULLTEXT_INDEX}, ranked by
+     * the server's relevance score. Every query word also matches longer words it is a prefix
+     * of, and a movie needs to match only one word. If the database has no usable full-text
+     * index, the search falls back to an in-process {@link MovieSearchIndex} built from one
+     * scan of the table and rebuilt after local writes or {@link #SEARCH_INDEX_MAX_AGE_MILLIS}.
+     * </p>
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of movies to return
+     * @return the matching movies, most relevant first; an empty list if nothing matches
+     */
+    public ArrayList<Movie> searchMovies(String query, int limit) {
+        Set<String> terms = MovieSearchIndex.tokenize(query);
+        if (terms.isEmpty() || limit < 1) return new ArrayList<>();
+
+        if (fullTextAvailable) {
+            StringBuilder booleanQuery = new StringBuilder();
+            for (String t : terms) booleanQuery.append(t).append("* ");
+
+            try {
+                return read(conn -> {
+                    try (PreparedStatement stmt = conn.prepareStatement(SEARCH_SQL)) {
+                        stmt.setString(1, booleanQuery.toString());
+                        stmt.setString(2, booleanQuery.toString());
+                        stmt.setInt(3, limit);
+                        return readPage(stmt, limit);
+                    }
+                });
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_FT_MATCHING_KEY_NOT_FOUND && e.getErrorCode() != ER_TABLE_CANT_HANDLE_FT) {
+                    e.printStackTrace();
+                    return new ArrayList<>();
+                }
+                System.err.println("Full-text search unavailable, using an in-process index: " + e.getMessage());
+                fullTextAvailable = false;
+            }
+        }
+        return fallbackSearchIndex().search(query, limit);
+    }
+
+    /** Returns the in-process search index, rebuilding it if it is missing or too old. */
+    private MovieSearchIndex fallbackSearchIndex() {
+        MovieSearchIndex index = searchIndex;
+        if (index == null || System.currentTimeMillis() - index.getBuiltAt() > SEARCH_INDEX_MAX_AGE_MILLIS) {
+            try (Stream<Movie> movies = streamAllMovies()) {
+                index = new MovieSearchIndex(movies);
+            }
+            searchIndex = index;
+        }
+        return index;
+    }
+
+    // ==================== PAGINATION ====================
+
+    /**
+     * Retrieves one page of movies using keyset (seek) pagination.
+     * <p>
+     * Instead of {@code OFFSET}, the page starts right after the row with ID {@code afterId}
+     * in the chosen order, so fetching page 10,000 costs the same as fetching page 1 when the
+     * indexes in {@link MovieSchema#PAGINATION_INDEXES} are present. Pass the ID of the last
+     * movie of the previous page, or {@code 0} for the first page. If that movie has since been
+     * deleted, use {@link #getMoviesPage(Movie, int, MovieSortKey)} with the last movie itself.
+     * </p>
+     *
+     * @param afterId the ID of the last movie on the previous page, or {@code 0} for the first page
+     * @param limit   the maximum number of movies to return
+     * @param sortKey the sort order; ties are broken by ID
+     * @return up to {@code limit} movies following {@code afterId}; an empty list at the end
+     */
+    public ArrayList<Movie> getMoviesPage(int afterId, int limit, MovieSortKey sortKey) {
+        if (afterId <= 0) return getMoviesPage(null, limit, sortKey);
+
+        String key = sortKey.getColumn();
+        String sql = sortKey == MovieSortKey.ID
+                ? "SELECT " + MovieRowMapper.COLUMNS + " FROM movies WHERE id > ? ORDER BY id LIMIT ?"
+                : "SELECT " + MovieRowMapper.columns("m") + " FROM movies m JOIN movies a ON a.id = ?"
+                  + " WHERE m." + key + " > a." + key + " OR (m." + key + " = a." + key + " AND m.id > a.id)"
+                  + " ORDER BY m." + key + ", m.id LIMIT ?";
+
+        try {
+            return read(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setInt(1, afterId);
+                    stmt.setInt(2, limit);
+                    return readPage(stmt, limit);
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Retrieves the page of movies that follows the given movie in the chosen order.
+     * <p>
+     * Works like {@link #getMoviesPage(int, int, MovieSortKey)} but seeks directly to the
+     * sort-key values of {@code after}, so it keeps working when that movie has been deleted.
+     * </p>
+     *
+     * @param after   the last movie of the previous page, or {@code null} for the first page
+     * @param limit   the maximum number of movies to return
+     * @param sortKey the sort order; ties are broken by ID
+     * @return up to {@code limit} movies following {@code after}; an empty list at the end
+     */
+    public ArrayList<Movie> getMoviesPage(Movie after, int limit, MovieSortKey sortKey) {
+        String key = sortKey.getColumn();
+        String order = sortKey == MovieSortKey.ID ? " ORDER BY id LIMIT ?" : " ORDER BY " + key + ", id LIMIT ?";
+        String where;
+        if (after == null) {
+            where = "";
+        } else if (sortKey == MovieSortKey.ID) {
+            where = " WHERE id > ?";
+        } else {
+            where = " WHERE " + key + " > ? OR (" + key + " = ? AND id > ?)";
+        }
+
+        String sql = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies" + where + order;
+        try {
+            return read(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    int p = 1;
+                    if (after != null) {
+                        if (sortKey != MovieSortKey.ID) {
+                            sortKey.bind(stmt, p++, after);
+                            sortKey.bind(stmt, p++, after);
+                        }
+                        stmt.setInt(p++, after.getId());
+                    }
+                    stmt.setInt(p, limit);
+                    return readPage(stmt, limit);
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /** Executes a page query and collects its rows. */
+    private static ArrayList<Movie> readPage(PreparedStatement stmt, int limit) throws SQLException {
+        ArrayList<Movie> page = new ArrayList<>(Math.min(limit, 1024));
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                page.add(MovieRowMapper.map(rs));
+            }
+        }
+        return page;
+    }
+
+    // ==================== CHANGE TRACKING ====================
+
+    /**
+     * How far each delta query reaches back before its token. A row whose transaction commits
+     * after a delta was taken still carries the earlier {@code updated_at} of its statement;
+     * the overlap picks such rows up on the next call at the cost of re-sending a few rows.
+     */
+    public static final long CHANGE_OVERLAP_MILLIS = 2_000;
+
+    /**
+     * Returns a token marking the current point in time on the database server.
+     * <p>
+     * Take it just before a full load, then pass it to {@link #getMoviesChangedSince(Timestamp)}
+     * to fetch only what changed afterwards. Requires {@link MovieSchema#CHANGE_TRACKING}.
+     * </p>
+     *
+     * @return the server's current time, or {@code null} if it could not be read
+     */
+    @Override
+    public Timestamp getChangeToken() {
+        try {
+            return read(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT CURRENT_TIMESTAMP(6)");
+                     ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    return rs.getTimestamp(1);
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the movies inserted, updated or deleted since a token.
+     * <p>
+     * Changed rows are found through the index on {@code updated_at} and deletions through the
+     * {@code movie_tombstones} table (see {@link MovieSchema#CHANGE_TRACKING}), so the cost is
+     * proportional to the size of the delta rather than the table. Both queries and the new
+     * token are read in one consistent snapshot. Rows changed within
+     * {@link #CHANGE_OVERLAP_MILLIS} before the token are reported again.
+     * </p>
+     *
+     * @param since a token from {@link #getChangeToken()} or a previous delta
+     * @return the changes and the token for the next call, or {@code null} if the query failed
+     *         (e.g. because change tracking is not installed)
+     */
+    @Override
+    public MovieChanges getMoviesChangedSince(Timestamp since) {
+        Timestamp from = new Timestamp(since.getTime() - CHANGE_OVERLAP_MILLIS);
+        from.setNanos(since.getNanos());
+
+        try {
+            return read(conn -> {
+                conn.setAutoCommit(false);
+                conn.setReadOnly(true);
+                try {
+                    Timestamp token;
+                    try (PreparedStatement stmt = conn.prepareStatement("SELECT CURRENT_TIMESTAMP(6)");
+                         ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        token = rs.getTimestamp(1);
+                    }
+
+                    ArrayList<Movie> changed = new ArrayList<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_SQL + " WHERE updated_at >= ?")) {
+                        stmt.setTimestamp(1, from);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) changed.add(MovieRowMapper.map(rs));
+                        }
+                    }
+
+                    int[] deleted = new int[16];
+                    int count = 0;
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "SELECT id FROM movie_tombstones WHERE deleted_at >= ?")) {
+                        stmt.setTimestamp(1, from);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                if (count == deleted.length) deleted = Arrays.copyOf(deleted, count * 2);
+                                deleted[count++] = rs.getInt(1);
+                            }
+                        }
+                    }
+                    conn.commit();
+                    return new MovieChanges(changed, Arrays.copyOf(deleted, count), token);
+                } finally {
+                    conn.setReadOnly(false);
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Deletes tombstones older than the given time. Clients holding an older token must do a
+     * full reload afterwards.
+     *
+     * @param olderThan tombstones recorded before this time are removed
+     * @return the number of tombstones removed
+     */
+    public int purgeTombstones(Timestamp olderThan) {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM movie_tombstones WHERE deleted_at < ?")) {
+            stmt.setTimestamp(1, olderThan);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // ==================== STREAMING ====================
+
+    /**
+     * Streams all movies from the database without loading them into memory first.
+     * <p>
+     * Rows are read through a server-side cursor (enabled by {@code useCursorFetch} in the
+     * URL built by {@link DBConnectionDialog}) in chunks of {@link #getFetchSize()} rows, so
+     * memory use stays constant regardless of table size and the first row is available
+     * as soon as the first chunk arrives.
+     * </p>
+     * <p>
+     * The stream holds a pooled connection until it is closed, so it must always be used
+     * in a try-with-resources block. A database error while reading is rethrown as an
+     * {@link IllegalStateException}.
+     * </p>
+     *
+     * <pre>{@code
+     * try (Stream<Movie> movies = db.streamAllMovies()) {
+     *     movies.forEach(m -> writer.println(m));
+     * }
+     * }</pre>
+     *
+     * @return a lazily populated stream of all movies; an empty stream if the query could not be started
+     */
+    @Override
+    public Stream<Movie> streamAllMovies() {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = pool.getConnection();
+            stmt = conn.prepareStatement(SELECT_ALL_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            ResultSet rs = stmt.executeQuery();
+            return openStream(conn, stmt, rs);
         } catch (SQLException e) {
             e.printStackTrace();
+            closeQuietly(stmt);
+            closeQuietly(conn);
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Wraps an open result set in a sequential stream that closes the result set,
+     * statement and connection when the stream is closed.
+     */
+    private static Stream<Movie> openStream(Connection conn, Statement stmt, ResultSet rs) {
+        Spliterator<Movie> rows = new Spliterators.AbstractSpliterator<Movie>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Movie> action) {
+                try {
+                    if (!rs.next()) return false;
+                    action.accept(MovieRowMapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Failed to read the next movie row.", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            closeQuietly(rs);
+            closeQuietly(stmt);
+            closeQuietly(conn);
+        });
+    }
+
+    /** @return the number of rows fetched per round trip when streaming */
+    public int getFetchSize() { return fetchSize; }
+
+    /**
+     * Sets the number of rows the server-side cursor returns per round trip when streaming.
+     *
+     * @param fetchSize rows per fetch (at least 1)
+     * @throws IllegalArgumentException if {@code fetchSize} is less than 1
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("Fetch size must be at least 1.");
+        this.fetchSize = fetchSize;
+    }
+
+    // ==================== BULK OPERATIONS ====================
+
+    /** @return the number of rows per batch/commit used by bulk operations */
+    public int getBatchSize() { return batchSize; }
+
+    /**
+     * Sets the number of rows sent per JDBC batch and committed together by bulk operations.
+     *
+     * @param batchSize rows per chunk (at least 1)
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Inserts many movies using JDBC batching, committing once per chunk of {@link #getBatchSize()} rows.
+     *
+     * @param movies the movies to insert
+     * @return the generated IDs and per-chunk timings of all committed rows
+     * @see #addMovies(Collection, int)
+     */
+    @Override
+    public BulkInsertResult addMovies(Collection<Movie> movies) {
+        return addMovies(movies, batchSize);
+    }
+
+    /**
+     * Inserts many movies using JDBC batching, committing once per chunk.
+     * <p>
+     * Each chunk is sent as a single batch (rewritten into multi-row {@code INSERT}s by the driver,
+     * see {@link DBConnectionDialog}) and committed on its own, so a failure only rolls back the
+     * chunk in progress. The generated IDs are also stored on the given {@link Movie} objects.
+     * If a chunk fails, the error is printed and the result covers the chunks committed before it.
+     * </p>
+     *
+     * @param movies    the movies to insert
+     * @param chunkSize rows per batch and commit (at least 1)
+     * @return the generated IDs and per-chunk timings of all committed rows
+     * @throws IllegalArgumentException if {@code chunkSize} is less than 1
+     */
+    public BulkInsertResult addMovies(Collection<Movie> movies, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+        long start = System.nanoTime();
+
+        int[] ids = new int[movies.size()];
+        long[] timings = new long[(movies.size() + chunkSize - 1) / chunkSize];
+        int committedRows = 0;
+        int committedChunks = 0;
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
+
+            Movie[] chunk = new Movie[chunkSize];
+            int pending = 0;
+            for (Movie m : movies) {
+                chunk[pending++] = m;
+                if (pending == chunkSize) {
+                    timings[committedChunks++] = insertChunk(conn, stmt, chunk, pending, ids, committedRows);
+                    committedRows += pending;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                timings[committedChunks++] = insertChunk(conn, stmt, chunk, pending, ids, committedRows);
+                committedRows += pending;
+            }
+        } catch (SQLException e) {
+            metrics.recordError("addMovies", start);
+            e.printStackTrace();
+        }
+        if (committedRows == movies.size()) metrics.record("addMovies", start, committedRows);
+        if (committedRows > 0) dataChanged();
+        return new BulkInsertResult(Arrays.copyOf(ids, committedRows), Arrays.copyOf(timings, committedChunks));
+    }
+
+    /**
+     * Executes and commits one chunk of a bulk insert, rolling it back on failure.
+     *
+     * @return the elapsed time of the chunk in nanoseconds
+     */
+    private long insertChunk(Connection conn, PreparedStatement stmt, Movie[] chunk, int count,
+                             int[] ids, int offset) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < count; i++) {
+                bindInsert(stmt, chunk[i]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (int i = 0; i < count && keys.next(); i++) {
+                    ids[offset + i] = keys.getInt(1);
+                    chunk[i].setId(ids[offset + i]);
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            stmt.clearBatch();
+            conn.rollback();
+            throw e;
+        }
+        return System.nanoTime() - start;
+    }
+
+    /** Combining marks left behind by canonical decomposition, i.e. the accents. */
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * @return the natural key of a movie, folded like the {@code utf8mb4_0900_ai_ci} columns
+     *         of {@link MovieSchema#NATURAL_KEY_INDEX}: case- and accent-insensitive
+     */
+    private static String naturalKey(Movie m) {
+        String key = m.getTitle() + '\u0000' + m.getYear() + '\u0000' + m.getDirector();
+        key = COMBINING_MARKS.matcher(Normalizer.normalize(key, Normalizer.Form.NFD)).replaceAll("");
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    /** Binds the insertable columns of a movie to parameters 1–7 of {@link #INSERT_SQL}. */
+    private static void bindInsert(PreparedStatement stmt, Movie m) throws SQLException {
+        bindInsert(stmt, 1, m);
+    }
+
+    /** Binds the seven insertable columns of a movie starting at parameter {@code first}. */
+    static void bindInsert(PreparedStatement stmt, int first, Movie m) throws SQLException {
+        stmt.setString(first, m.getTitle());
+        stmt.setInt(first + 1, m.getYear());
+        stmt.setString(first + 2, m.getDirector());
+        stmt.setDouble(first + 3, m.getRating());
+        stmt.setInt(first + 4, m.getRuntimeMinutes());
+        stmt.setInt(first + 5, m.getVotes());
+        stmt.setBoolean(first + 6, m.isWatched());
+    }
+
+    /**
+     * Inserts or updates many movies by natural key, committing once per chunk of {@link #getBatchSize()} rows.
+     *
+     * @param movies the movies to insert or update
+     * @return inserted, updated and unchanged counts and per-chunk timings of all committed rows
+     * @see #upsertMovies(Collection, int)
+     */
+    public UpsertResult upsertMovies(Collection<Movie> movies) {
+        return upsertMovies(movies, batchSize);
+    }
+
+    /**
+     * Inserts or updates many movies by their natural key {@code (title, year, director)}.
+     * <p>
+     * Each chunk costs two statements in one transaction, however many rows it holds: a locking
+     * count of the keys that already exist, then one multi-row
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE} that writes rating, runtime, votes and watched
+     * status. Comparing the count with the affected-row total separates inserted, updated and
+     * unchanged rows. This needs {@link MovieSchema#NATURAL_KEY_INDEX} and the driver's default
+     * found-rows reporting ({@code useAffectedRows=false}).
+     * </p>
+     * <p>
+     * Natural keys are compared case- and accent-insensitively, like the index. If the same key
+     * appears more than once in a chunk, the last occurrence wins.
+     * Chunks larger than the placeholder limit of a MySQL statement are split further.
+     * If a chunk fails, the error is printed and the result covers the chunks committed before it.
+     * Unflushed write-behind updates of movies with the same natural key are dropped first.
+     * </p>
+     *
+     * @param movies    the movies to insert or update
+     * @param chunkSize rows per statement and commit (at least 1)
+     * @return inserted, updated and unchanged counts and per-chunk timings of all committed rows
+     * @throws IllegalArgumentException if {@code chunkSize} is less than 1
+     */
+    public UpsertResult upsertMovies(Collection<Movie> movies, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+        chunkSize = Math.min(chunkSize, MAX_UPSERT_CHUNK);
+
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) {
+            // Rows are matched by natural key, so drop buffered updates of movies with the same key
+            Set<String> keys = new HashSet<>();
+            for (Movie m : movies) keys.add(naturalKey(m));
+            buffer.discard(m -> keys.contains(naturalKey(m)));
+        }
+
+        int[] counts = new int[3];  // inserted, updated, unchanged
+        long[] timings = new long[(movies.size() + chunkSize - 1) / chunkSize];
+        int committedChunks = 0;
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+
+            // Keyed like the unique index, so one chunk never holds two tuples for the same row
+            Map<String, Movie> chunk = new LinkedHashMap<>();
+            for (Movie m : movies) {
+                chunk.put(naturalKey(m), m);
+                if (chunk.size() == chunkSize) {
+                    timings[committedChunks++] = upsertChunk(conn, new ArrayList<>(chunk.values()), counts);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                timings[committedChunks++] = upsertChunk(conn, new ArrayList<>(chunk.values()), counts);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        MovieCache cache = movieCache;
+        if (cache != null) cache.invalidateAll();
+        dataChanged();
+        return new UpsertResult(counts[0], counts[1], counts[2], Arrays.copyOf(timings, committedChunks));
+    }
+
+    /**
+     * Executes and commits one chunk of a bulk upsert, rolling it back on failure.
+     *
+     * @param counts inserted, updated and unchanged totals, incremented in place
+     * @return the elapsed time of the chunk in nanoseconds
+     */
+    private long upsertChunk(Connection conn, List<Movie> chunk, int[] counts) throws SQLException {
+        long start = System.nanoTime();
+        int n = chunk.size();
+        try {
+            int existing;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT COUNT(*) FROM movies WHERE (title, year, director) IN ("
+                    + repeat("(?, ?, ?)", n) + ") FOR UPDATE")) {
+                int p = 1;
+                for (Movie m : chunk) {
+                    stmt.setString(p++, m.getTitle());
+                    stmt.setInt(p++, m.getYear());
+                    stmt.setString(p++, m.getDirector());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    existing = rs.getInt(1);
+                }
+            }
+
+            int affected;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO movies (title, year, director, rating, runtimeMinutes, votes, watched) VALUES "
+                    + repeat("(?, ?, ?, ?, ?, ?, ?)", n)
+                    + " ON DUPLICATE KEY UPDATE"
+                    // Assigned first, while the other columns still hold their old values
+                    + " version = IF(rating = VALUES(rating) AND runtimeMinutes = VALUES(runtimeMinutes)"
+                    + " AND votes = VALUES(votes) AND watched = VALUES(watched), version, version + 1),"
+                    + " rating = VALUES(rating), runtimeMinutes = VALUES(runtimeMinutes),"
+                    + " votes = VALUES(votes), watched = VALUES(watched)")) {
+                for (int i = 0; i < n; i++) {
+                    bindInsert(stmt, i * 7 + 1, chunk.get(i));
+                }
+                affected = stmt.executeUpdate();
+            }
+            conn.commit();
+
+            // Found rows: 1 per insert, 2 per changed row, 1 per unchanged row
+            int inserted = n - existing;
+            int updated = affected - inserted - existing;
+            counts[0] += inserted;
+            counts[1] += updated;
+            counts[2] += existing - updated;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Deletes every movie whose ID is in {@code ids}, in one transaction.
+     * <p>
+     * IDs are sent as {@code IN (...)} lists of up to {@link #getBatchSize()} entries, so
+     * deleting thousands of movies takes a handful of statements and a single commit.
+     * If any statement fails, the whole delete is rolled back.
+     * </p>
+     *
+     * @param ids the IDs of the movies to delete
+     * @return the number of movies deleted; {@code 0} if the delete failed
+     */
+    @Override
+    public int deleteMovies(int[] ids) {
+        long start = System.nanoTime();
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) buffer.discard(ids);
+
+        int deleted = 0;
+        try {
+            deleted = updateByIds("DELETE FROM movies WHERE id IN (", ids, null);
+            metrics.record("deleteMovies", start, deleted);
+        } catch (SQLException e) {
+            metrics.recordError("deleteMovies", start);
+            e.printStackTrace();
+        }
+        invalidate(ids);
+        return deleted;
+    }
+
+    /**
+     * Sets the watched flag of every movie whose ID is in {@code ids}, in one transaction.
+     * <p>
+     * Works like {@link #deleteMovies(int[])}: chunked {@code IN (...)} lists and one commit.
+     * Unflushed write-behind updates of the movies are dropped, so they cannot reset the flag later.
+     * </p>
+     *
+     * @param ids     the IDs of the movies to update
+     * @param watched the new watched status
+     * @return the number of movies matched; {@code 0} if the update failed
+     */
+    public int markWatched(int[] ids, boolean watched) {
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) buffer.discard(ids);
+
+        int matched = 0;
+        try {
+            matched = updateByIds("UPDATE movies SET watched = ?, version = version + 1 WHERE id IN (", ids, watched);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        invalidate(ids);
+        return matched;
+    }
+
+    /**
+     * Runs a statement of the form {@code <prefix> ?, ?, ...)} for chunks of IDs inside one transaction.
+     *
+     * @param prefix the SQL up to and including the opening parenthesis of the {@code IN} list
+     * @param ids    the IDs to bind
+     * @param value  an optional leading parameter bound before the IDs, or {@code null}
+     * @return the total number of affected rows
+     * @throws SQLException if a statement failed; the transaction was rolled back
+     */
+    private int updateByIds(String prefix, int[] ids, Object value) throws SQLException {
+        if (ids.length == 0) return 0;
+        int chunkSize = batchSize;
+        int affected = 0;
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < ids.length; from += chunkSize) {
+                    int n = Math.min(chunkSize, ids.length - from);
+                    try (PreparedStatement stmt = conn.prepareStatement(prefix + repeat("?", n) + ")")) {
+                        int p = 1;
+                        if (value != null) stmt.setObject(p++, value);
+                        for (int i = 0; i < n; i++) {
+                            stmt.setInt(p++, ids[from + i]);
+                        }
+                        affected += stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Updates many movies using JDBC batching in one transaction per call.
+     * Unflushed write-behind updates of the movies are dropped, since these updates replace them.
+     * After the commit, the version on each movie is advanced like the row's.
+     *
+     * @param movies the movies containing updated information
+     * @return {@code true} if all updates were committed; {@code false} if they were rolled back
+     */
+    @Override
+    public boolean updateMovies(Collection<Movie> movies) {
+        long start = System.nanoTime();
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) buffer.discard(movies.stream().mapToInt(Movie::getId).toArray());
+
+        try {
+            writeUpdates(movies);
+            for (Movie m : movies) m.setVersion(m.getVersion() + 1);
+            metrics.record("updateMovies", start, movies.size());
+            return true;
+        } catch (SQLException e) {
+            metrics.recordError("updateMovies", start);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes updates in batches of {@link #getBatchSize()} rows and commits them together.
+     * Also used by {@link WriteBehindBuffer} to flush buffered updates.
+     *
+     * @param movies the movies containing updated information
+     * @throws SQLException if the batch failed; nothing was committed
+     */
+    void writeUpdates(Collection<Movie> movies) throws SQLException {
+        if (movies.isEmpty()) return;
+        int chunkSize = batchSize;
+        int[] ids = new int[movies.size()];
+
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+            conn.setAutoCommit(false);
+            try {
+                int i = 0;
+                for (Movie m : movies) {
+                    bindUpdate(stmt, m);
+                    stmt.addBatch();
+                    ids[i++] = m.getId();
+                    if (i % chunkSize == 0) stmt.executeBatch();
+                }
+                if (i % chunkSize != 0) stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                stmt.clearBatch();
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            invalidate(ids);
+        }
+    }
+
+    // ==================== UNIT OF WORK ====================
+
+    /**
+     * Starts a transaction for grouping many changes, at the connection's default isolation level.
+     *
+     * @return an open unit of work; must be closed, typically with try-with-resources
+     * @throws SQLException if no connection could be borrowed
+     * @see #beginUnitOfWork(int)
+     */
+    public MovieUnitOfWork beginUnitOfWork() throws SQLException {
+        return beginUnitOfWork(-1);
+    }
+
+    /**
+     * Starts a transaction for grouping many changes.
+     * <p>
+     * The unit of work holds a pooled connection until it is closed. Its changes are written
+     * immediately, bypassing write-behind, and committed together by {@link MovieUnitOfWork#commit()}.
+     * </p>
+     *
+     * @param isolationLevel one of {@link Connection#TRANSACTION_READ_UNCOMMITTED},
+     *                       {@link Connection#TRANSACTION_READ_COMMITTED},
+     *                       {@link Connection#TRANSACTION_REPEATABLE_READ} or
+     *                       {@link Connection#TRANSACTION_SERIALIZABLE}; {@code -1} keeps the default
+     * @return an open unit of work; must be closed, typically with try-with-resources
+     * @throws IllegalArgumentException if {@code isolationLevel} is not one of the accepted values
+     * @throws SQLException if no connection could be borrowed or the isolation level could not be set
+     */
+    public MovieUnitOfWork beginUnitOfWork(int isolationLevel) throws SQLException {
+        switch (isolationLevel) {
+            case -1:
+            case Connection.TRANSACTION_READ_UNCOMMITTED:
+            case Connection.TRANSACTION_READ_COMMITTED:
+            case Connection.TRANSACTION_REPEATABLE_READ:
+            case Connection.TRANSACTION_SERIALIZABLE:
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown isolation level " + isolationLevel + ".");
+        }
+
+        Connection conn = pool.getConnection();
+        try {
+            return new MovieUnitOfWork(this, conn, isolationLevel);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * Called by {@link MovieUnitOfWork#commit()}: drops buffered and cached state of the
+     * movies the transaction wrote.
+     */
+    void unitCommitted(int[] ids) {
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) buffer.discard(ids);
+        invalidate(ids);
+    }
+
+    // ==================== WRITE-BEHIND ====================
+
+    /**
+     * Switches {@link #updateMovie(Movie)} to write-behind mode.
+     * <p>
+     * Updates are then buffered, coalesced per movie and written in batches every
+     * {@code flushIntervalMillis}, or as soon as {@code maxPending} movies are waiting.
+     * Calling this again replaces the buffer after flushing the old one.
+     * </p>
+     *
+     * @param flushIntervalMillis time between background flushes (at least 1)
+     * @param maxPending          maximum number of unflushed movies (at least 1)
+     * @see WriteBehindBuffer
+     */
+    public synchronized void enableWriteBehind(long flushIntervalMillis, int maxPending) {
+        WriteBehindBuffer replacement = new WriteBehindBuffer(this, flushIntervalMillis, maxPending);
+        WriteBehindBuffer previous = writeBehind;
+        writeBehind = replacement;
+        if (previous != null) previous.close();
+    }
+
+    /**
+     * Writes all buffered updates and switches {@link #updateMovie(Movie)} back to immediate writes.
+     *
+     * @throws IllegalStateException if the final flush failed
+     */
+    public synchronized void disableWriteBehind() {
+        WriteBehindBuffer previous = writeBehind;
+        writeBehind = null;
+        if (previous != null) previous.close();
+    }
+
+    /** @return the write-behind buffer, or {@code null} if updates are written immediately */
+    public WriteBehindBuffer getWriteBehind() { return writeBehind; }
+
+    // ==================== RETRIES ====================
+
+    /** @return the policy for retrying reads after transient errors */
+    public RetryPolicy getRetryPolicy() { return retryPolicy; }
+
+    /**
+     * Sets how reads are retried after transient errors such as a dropped connection.
+     * Writes are never retried, because a write whose reply was lost may already have been applied.
+     *
+     * @param retryPolicy the new policy; {@link RetryPolicy#NONE} disables retries
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Runs an idempotent read on a borrowed connection, retrying transient failures.
+     * <p>
+     * Each attempt borrows a fresh connection, so a connection dropped by the server is
+     * replaced by the pool's validation on the next try. Retries wait according to the
+     * {@link RetryPolicy} and stop early once the pool's {@link CircuitBreaker} has opened.
+     * </p>
+     *
+     * @throws SQLException the error of the last attempt
+     */
+    private <T> T read(SqlQuery<T> query) throws SQLException {
+        RetryPolicy policy = retryPolicy;
+        for (int attempt = 1; ; attempt++) {
+            try (Connection conn = pool.getConnection()) {
+                return query.run(conn);
+            } catch (SQLException e) {
+                if (attempt >= policy.getMaxAttempts() || !RetryPolicy.isRetryable(e)
+                        || pool.getCircuitBreaker().isOpen()) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(policy.backoffMillis(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // ==================== STATISTICS ====================
+
+    /**
+     * Returns the prepared-statement cache counters of the underlying pool.
+     * <p>
+     * With a warm cache, repeated calls such as {@link #getMovieById(int)} reuse the statement
+     * already prepared on the borrowed connection, which shows up as hits here.
+     * </p>
+     *
+     * @return a snapshot of statement cache hits, misses and evictions
+     */
+    public StatementCacheStats getStatementCacheStats() {
+        return pool.getStatementCacheStats();
+    }
+
+    /**
+     * Returns the per-operation metrics of this manager: latency histograms and call, error and
+     * row counters of {@link #getAllMovies()}, {@link #getMovieById(int)}, {@link #addMovie(Movie)},
+     * {@link #updateMovie(Movie)}, {@link #deleteMovie(int)} and the bulk operations.
+     *
+     * @return the live metrics; use {@link MovieDaoMetrics#snapshot()} to read them
+     */
+    public MovieDaoMetrics getMetrics() { return metrics; }
+
+    /** @return the read-through cache used by {@link #getMovieById(int)}, or {@code null} if caching is off */
+    public MovieCache getMovieCache() { return movieCache; }
+
+    /**
+     * Replaces the read-through cache used by {@link #getMovieById(int)}.
+     *
+     * @param movieCache the new cache, or {@code null} to always read from the database
+     */
+    public void setMovieCache(MovieCache movieCache) {
+        this.movieCache = movieCache;
+    }
+
+    /**
+     * Returns the counters of the movie cache.
+     *
+     * @return a snapshot of cache hits, misses and evictions; all zero if caching is off
+     */
+    public MovieCacheStats getMovieCacheStats() {
+        MovieCache cache = movieCache;
+        return cache == null ? new MovieCacheStats(0, 0, 0, 0, 0) : cache.getStats();
+    }
+
+    // ==================== HELPERS ====================
+
+    /** Drops derived data (search index, cached aggregates) after any local write. */
+    private void dataChanged() {
+        searchIndex = null;
+        dataVersion.incrementAndGet();
+    }
+
+    /** Drops a movie from the caches after a write, discarding any read that overlapped it. */
+    private void invalidate(int id) {
+        MovieCache cache = movieCache;
+        if (cache != null) cache.invalidate(id);
+        dataChanged();
+    }
+
+    /** Drops several movies from the caches after a bulk write. */
+    private void invalidate(int[] ids) {
+        MovieCache cache = movieCache;
+        if (cache != null) cache.invalidate(ids);
+        dataChanged();
+    }
+
+    /** Returns the given projection with {@link MovieField#ID} first, adding it if missing. */
+    private static MovieField[] withId(MovieField[] fields) {
+        EnumSet<MovieField> rest = EnumSet.noneOf(MovieField.class);
+        rest.addAll(Arrays.asList(fields));
+        rest.remove(MovieField.ID);
+        MovieField[] projection = new MovieField[rest.size() + 1];
+        projection[0] = MovieField.ID;
+        int i = 1;
+        for (MovieField f : rest) projection[i++] = f;
+        return projection;
+    }
+
+    /** Returns {@code count} copies of {@code group} separated by commas, e.g. for multi-row VALUES lists. */
+    static String repeat(String group, int count) {
+        StringBuilder sb = new StringBuilder((group.length() + 2) * count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(group);
+        }
+        return sb.toString();
+    }
+
+    /** Closes a JDBC resource, ignoring {@code null} and any error raised while closing. */
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) return;
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            // Nothing useful to do with a failure while releasing a resource
         }
     }
 }
@@ -215,6 +215,7 @@ public class MovieDialogGUI extends JDialog {
 
         if (dialog.movie != null) {
             dialog.movie.setId(m.getId()); // Preserve original ID
+            dialog.movie.setVersion(m.getVersion()); // Preserve version for the conflict check
         }
         return dialog.movie;
     }
@@ -0,0 +1,57 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The columns of the {@code movies} table, in the order used by {@link MovieRowMapper#COLUMNS}.
+ * <p>
+ * Used to describe projections: queries such as
+ * {@link MovieDatabaseManager#getMovies(MovieField...)} select only the requested fields and
+ * populate only those properties of the returned {@link Movie} objects.
+ * </p>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public enum MovieField {
+
+    ID("id"),
+    TITLE("title"),
+    YEAR("year"),
+    DIRECTOR("director"),
+    RATING("rating"),
+    RUNTIME_MINUTES("runtimeMinutes"),
+    VOTES("votes"),
+    WATCHED("watched"),
+    VERSION("version");
+
+    private final String column;
+
+    MovieField(String column) {
+        this.column = column;
+    }
+
+    /** @return the {@code movies} column backing this field */
+    public String getColumn() { return column; }
+
+    /**
+     * Reads this field from the given result set column and stores it on the movie.
+     *
+     * @param rs      the result set positioned on a row
+     * @param ordinal the 1-based column index holding this field
+     * @param target  the movie to populate
+     * @throws SQLException if the column cannot be read
+     */
+    void read(ResultSet rs, int ordinal, Movie target) throws SQLException {
+        switch (this) {
+            case ID:              target.setId(rs.getInt(ordinal)); break;
+            case TITLE:           target.setTitle(rs.getString(ordinal)); break;
+            case YEAR:            target.setYear(rs.getInt(ordinal)); break;
+            case DIRECTOR:        target.setDirector(rs.getString(ordinal)); break;
+            case RATING:          target.setRating(rs.getDouble(ordinal)); break;
+            case RUNTIME_MINUTES: target.setRuntimeMinutes(rs.getInt(ordinal)); break;
+            case VOTES:           target.setVotes(rs.getInt(ordinal)); break;
+            case WATCHED:         target.setWatched(rs.getBoolean(ordinal)); break;
+            case VERSION:         target.setVersion(rs.getInt(ordinal)); break;
+        }
+    }
+}
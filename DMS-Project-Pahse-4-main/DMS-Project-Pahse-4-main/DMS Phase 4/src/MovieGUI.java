@@ -2,7 +2,12 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Represents the main graphical user interface (GUI) of the Movie Data Management System (DMS).
@@ -14,7 +19,7 @@ import java.util.ArrayList;
  * <p><b>Role in the System:</b></p>
  * <ul>
  *     <li>Acts as the main control hub for user interactions with the movie database.</li>
- *     <li>Communicates directly with {@link MovieDatabaseManager} to read and update data.</li>
+ *     <li>Reads and updates data through a {@link MovieRepository}, e.g. {@link MovieDatabaseManager}.</li>
  *     <li>Uses {@link MovieDialogGUI} for adding and editing movie entries.</li>
  * </ul>
  *
@@ -28,7 +33,7 @@ import java.util.ArrayList;
  *
  * <p><b>Example Usage:</b></p>
  * <pre>{@code
- * MovieDatabaseManager db = new MovieDatabaseManager(connection);
+ * MovieDatabaseManager db = new MovieDatabaseManager(pool);
  * new MovieGUI(db); // launches the main GUI window
  * }</pre>
  *
@@ -43,16 +48,26 @@ public class MovieGUI extends JFrame {
     /** Table model backing the JTable, handles dynamic updates. */
     private DefaultTableModel tableModel;
 
-    /** Manages communication between the GUI and the database. */
-    private MovieDatabaseManager db;
+    /** Manages communication between the GUI and the movie storage. */
+    private MovieRepository db;
+
+    /** Runs long database calls off the event dispatch thread. */
+    private final AsyncMovieDatabaseManager async;
+
+    /** Change token of the table content, or {@code null} if the next refresh must reload everything. */
+    private Timestamp changeToken;
+
+    /** The movies shown in the table by ID, with the versions they were read at. */
+    private final HashMap<Integer, Movie> shownMovies = new HashMap<>();
 
     /**
      * Constructs the main GUI for the Movie Data Management System.
      *
-     * @param db the {@link MovieDatabaseManager} instance used to handle database operations.
+     * @param db the {@link MovieRepository} used to read and store movies.
      */
-    public MovieGUI(MovieDatabaseManager db) {
+    public MovieGUI(MovieRepository db) {
         this.db = db;
+        this.async = new AsyncMovieDatabaseManager(db);
 
         setTitle("Movie Database System");
         setSize(900, 500);
@@ -83,7 +98,7 @@ public class MovieGUI extends JFrame {
         }, 0);
 
         movieTable = new JTable(tableModel);
-        movieTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        movieTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         movieTable.setBackground(panelColor);
         movieTable.setForeground(textColor);
         movieTable.setSelectionBackground(gold);
@@ -141,7 +156,7 @@ public class MovieGUI extends JFrame {
         editButton.addActionListener(this::editMovie);
         deleteButton.addActionListener(this::deleteMovie);
         scarinessButton.addActionListener(this::showScariness);
-        refreshButton.addActionListener(e -> loadMovies());
+        refreshButton.addActionListener(e -> refreshMovies());
 
         JPanel buttonPanel = new JPanel();
         buttonPanel.setBackground(background);
@@ -160,49 +175,216 @@ public class MovieGUI extends JFrame {
     }
 
     /**
-     * Loads all movies from the database and displays them in the JTable.
+     * Loads all movies from the repository and displays them in the JTable.
      * <p>
-     * Clears the existing table content before reloading data.
+     * The query runs in the background, so the window stays responsive while a large
+     * table loads. The existing table content is replaced once all rows have arrived.
+     * A change token taken before the load lets later refreshes fetch only the delta.
      * </p>
      */
     public void loadMovies() {
+        async.submit(db -> {
+                    Timestamp token = db.getChangeToken();
+                    ArrayList<Movie> movies = db.getAllMovies();
+                    SwingUtilities.invokeLater(() -> showMovies(movies, token));
+                    return null;
+                })
+                .exceptionally(error -> {
+                    error.printStackTrace();
+                    return null;
+                });
+    }
+
+    /**
+     * Updates the table with the movies changed since the last load or refresh.
+     * <p>
+     * Only inserted, updated and deleted rows are transferred and applied. Falls back to
+     * {@link #loadMovies()} if no change token is available, e.g. because the repository does
+     * not track changes or {@link MovieSchema#CHANGE_TRACKING} is not installed.
+     * </p>
+     */
+    public void refreshMovies() {
+        Timestamp since = changeToken;
+        if (since == null) {
+            loadMovies();
+            return;
+        }
+        async.submit(db -> db.getMoviesChangedSince(since))
+                .thenAccept(delta -> SwingUtilities.invokeLater(() -> {
+                    if (delta == null) {
+                        changeToken = null;
+                        loadMovies();
+                    } else {
+                        applyChanges(delta);
+                    }
+                }))
+                .exceptionally(error -> {
+                    error.printStackTrace();
+                    return null;
+                });
+    }
+
+    /**
+     * Replaces the table content with the given movies. Must run on the event dispatch thread.
+     *
+     * @param movies the movies to display
+     * @param token  the change token taken before the movies were read, or {@code null}
+     */
+    private void showMovies(ArrayList<Movie> movies, Timestamp token) {
         tableModel.setRowCount(0);
-        ArrayList<Movie> movies = db.getAllMovies();
+        shownMovies.clear();
         for (Movie m : movies) {
-            tableModel.addRow(new Object[]{
-                    m.getId(), m.getTitle(), m.getYear(), m.getDirector(),
-                    m.getRating(), m.getRuntimeMinutes(), m.getVotes(),
-                    m.isWatched() ? "Yes" : "No"
-            });
+            tableModel.addRow(toRow(m));
+            shownMovies.put(m.getId(), m);
+        }
+        changeToken = token;
+    }
+
+    /**
+     * Applies a delta to the table: changed rows are overwritten or appended, deleted rows removed.
+     * Must run on the event dispatch thread.
+     *
+     * @param delta the changes since {@link #changeToken}
+     */
+    private void applyChanges(MovieChanges delta) {
+        if (!delta.isEmpty()) {
+            HashMap<Integer, Integer> rowById = new HashMap<>();
+            for (int row = 0; row < tableModel.getRowCount(); row++) {
+                rowById.put((Integer) tableModel.getValueAt(row, 0), row);
+            }
+
+            for (Movie m : delta.getChanged()) {
+                shownMovies.put(m.getId(), m);
+                Integer row = rowById.get(m.getId());
+                Object[] values = toRow(m);
+                if (row == null) {
+                    tableModel.addRow(values);
+                } else {
+                    for (int col = 1; col < values.length; col++) {
+                        tableModel.setValueAt(values[col], row, col);
+                    }
+                }
+            }
+
+            for (int id : delta.getDeletedIds()) shownMovies.remove(id);
+            int[] deletedRows = Arrays.stream(delta.getDeletedIds())
+                    .mapToObj(rowById::get)
+                    .filter(row -> row != null)
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .toArray();
+            for (int i = deletedRows.length - 1; i >= 0; i--) {
+                tableModel.removeRow(deletedRows[i]);
+            }
+        }
+        changeToken = delta.getToken();
+    }
+
+    /**
+     * Converts a movie into the cell values of one table row.
+     *
+     * @param m the movie to display
+     * @return the row values, in column order
+     */
+    private static Object[] toRow(Movie m) {
+        return new Object[]{
+                m.getId(), m.getTitle(), m.getYear(), m.getDirector(),
+                m.getRating(), m.getRuntimeMinutes(), m.getVotes(),
+                m.isWatched() ? "Yes" : "No"
+        };
+    }
+
+    /**
+     * Overwrites the table row of a movie, or appends one if the movie is not shown, and
+     * remembers it as shown. Must run on the event dispatch thread.
+     *
+     * @param m the movie to display
+     */
+    private void showMovie(Movie m) {
+        Object[] values = toRow(m);
+        shownMovies.put(m.getId(), m);
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            if (m.getId() == (Integer) tableModel.getValueAt(row, 0)) {
+                for (int col = 1; col < values.length; col++) {
+                    tableModel.setValueAt(values[col], row, col);
+                }
+                return;
+            }
         }
+        tableModel.addRow(values);
     }
 
     /**
      * Retrieves the currently selected movie from the table.
+     * <p>
+     * Returns a copy of the movie as it was loaded into the table, with its version, so an edit
+     * can be saved with {@link MovieRepository#updateMovieIfCurrent(Movie)} without re-reading it.
+     * </p>
      *
      * @return the {@link Movie} object corresponding to the selected row, or {@code null} if none is selected.
      */
     private Movie getSelectedMovie() {
         int row = movieTable.getSelectedRow();
         if (row == -1) return null;
-        return db.getMovieById((int) tableModel.getValueAt(row, 0));
+        Movie shown = shownMovies.get((Integer) tableModel.getValueAt(row, 0));
+        return shown != null ? new Movie(shown) : null;
+    }
+
+    /**
+     * Runs a write in the background and hands its outcome to the event dispatch thread.
+     * <p>
+     * Writes get no timeout: a write given up on could still commit after it was reported as
+     * failed. If the write throws, the error is printed and {@code onDone} receives {@code null}.
+     * </p>
+     *
+     * @param operation the repository call to run
+     * @param onDone    receives the call's result on the event dispatch thread
+     * @param <T>       the result type
+     */
+    private <T> void write(Function<MovieRepository, T> operation, Consumer<T> onDone) {
+        async.submit(operation, 0)
+                .whenComplete((result, error) -> {
+                    if (error != null) error.printStackTrace();
+                    SwingUtilities.invokeLater(() -> onDone.accept(error == null ? result : null));
+                });
+    }
+
+    /** Tells the user that a movie could not be saved. */
+    private void showSaveError() {
+        JOptionPane.showMessageDialog(this, "The movie could not be saved.",
+                "Database Error", JOptionPane.ERROR_MESSAGE);
     }
 
     /**
      * Opens a dialog to add a new movie to the database.
+     * <p>
+     * The insert runs in the background. Only the inserted row is appended to the table;
+     * the rest of the table is not reloaded.
+     * </p>
      *
      * @param e the {@link ActionEvent} triggered by the button click.
      */
     private void addMovie(ActionEvent e) {
         Movie newMovie = MovieDialogGUI.showAddDialog(this);
         if (newMovie != null) {
-            db.addMovie(newMovie);
-            loadMovies();
+            write(db -> db.addMovie(newMovie), saved -> {
+                if (saved == null) {
+                    showSaveError();
+                    return;
+                }
+                tableModel.addRow(toRow(saved));
+                shownMovies.put(saved.getId(), new Movie(saved));
+            });
         }
     }
 
     /**
      * Opens a dialog to edit the selected movie.
+     * <p>
+     * The movie is edited as shown in the table and saved in the background with an optimistic
+     * update. If someone else changed it in the meantime, nothing is overwritten: the row shows
+     * the current values and the user can edit again. Only the edited row is updated in the table.
+     * </p>
      *
      * @param e the {@link ActionEvent} triggered by the button click.
      */
@@ -213,18 +395,60 @@ public class MovieGUI extends JFrame {
             return;
         }
         Movie updated = MovieDialogGUI.showEditDialog(this, selected);
-        if (updated != null) {
-            db.updateMovie(updated);
-            loadMovies();
+        if (updated == null) return;
+
+        write(db -> db.updateMovieIfCurrent(updated), result -> showUpdateResult(selected, result));
+    }
+
+    /**
+     * Applies the outcome of an edit to the table and tells the user about conflicts.
+     * Must run on the event dispatch thread.
+     *
+     * @param selected the movie as it was before the edit
+     * @param result   the outcome of the update, or {@code null} if it failed
+     */
+    private void showUpdateResult(Movie selected, UpdateResult result) {
+        if (result == null) {
+            showSaveError();
+            return;
+        }
+        switch (result.getStatus()) {
+            case UPDATED:
+                showMovie(new Movie(result.getMovie()));
+                break;
+            case CONFLICT:
+                showMovie(result.getMovie());
+                JOptionPane.showMessageDialog(this,
+                        "\"" + selected.getTitle() + "\" was changed by someone else while you were editing it.\n"
+                                + "Your changes were not saved; the table now shows the current values.",
+                        "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                break;
+            case NOT_FOUND:
+                JOptionPane.showMessageDialog(this,
+                        "\"" + selected.getTitle() + "\" was deleted by someone else while you were editing it.",
+                        "Edit Conflict", JOptionPane.WARNING_MESSAGE);
+                refreshMovies();
+                break;
         }
     }
 
     /**
      * Deletes the selected movie from the database after confirmation.
+     * <p>
+     * When several rows are selected, they are all deleted with a single
+     * {@link MovieRepository#deleteMovies(int[])} call. The delete runs in the background and
+     * the table is refreshed once it has finished.
+     * </p>
      *
      * @param e the {@link ActionEvent} triggered by the button click.
      */
     private void deleteMovie(ActionEvent e) {
+        int[] rows = movieTable.getSelectedRows();
+        if (rows.length > 1) {
+            deleteMovies(rows);
+            return;
+        }
+
         Movie selected = getSelectedMovie();
         if (selected == null) {
             JOptionPane.showMessageDialog(this, "Please select a movie to delete.");
@@ -236,9 +460,29 @@ public class MovieGUI extends JFrame {
                 "Confirm Delete", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            db.deleteMovie(selected.getId());
-            loadMovies();
+            write(db -> {
+                db.deleteMovie(selected.getId());
+                return null;
+            }, ignored -> refreshMovies());
+        }
+    }
+
+    /**
+     * Deletes the movies in the given table rows after confirmation.
+     *
+     * @param rows the selected table rows
+     */
+    private void deleteMovies(int[] rows) {
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "Are you sure you want to delete " + rows.length + " movies?",
+                "Confirm Delete", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) return;
+
+        int[] ids = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = (int) tableModel.getValueAt(rows[i], 0);
         }
+        write(db -> db.deleteMovies(ids), deleted -> refreshMovies());
     }
 
     /**
@@ -0,0 +1,213 @@
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter, sort and limit criteria for {@link MovieDatabaseManager#findMovies(MovieQuery)} and
+ * {@link ColumnarCatalog#findMovies(MovieQuery)}.
+ * <p>
+ * All criteria are optional and combined with {@code AND}; a new query matches every movie.
+ * The criteria are translated into a single parameterized SQL statement, so filtering,
+ * sorting and limiting happen in the database and only matching rows are transferred.
+ * Each predicate can be served by an index from {@link MovieSchema#PAGINATION_INDEXES} or
+ * {@link MovieSchema#QUERY_INDEXES}.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * MovieQuery query = new MovieQuery()
+ *         .director("John Carpenter")
+ *         .yearBetween(1978, 1988)
+ *         .orderBy(MovieSortKey.RATING, true)
+ *         .limit(10);
+ * ArrayList<Movie> best = db.findMovies(query);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class MovieQuery {
+
+    private String titlePrefix;
+    private String director;
+    private Integer minYear;
+    private Integer maxYear;
+    private Double minRating;
+    private Double maxRating;
+    private Boolean watched;
+    private MovieSortKey sortKey = MovieSortKey.ID;
+    private boolean descending;
+    private int limit;
+
+    // ==================== CRITERIA ====================
+
+    /**
+     * Restricts the result to titles starting with the given text.
+     *
+     * @param prefix the title prefix, or {@code null} to remove the criterion
+     * @return this query
+     */
+    public MovieQuery titlePrefix(String prefix) {
+        this.titlePrefix = prefix;
+        return this;
+    }
+
+    /**
+     * Restricts the result to one director.
+     *
+     * @param director the exact director name, or {@code null} to remove the criterion
+     * @return this query
+     */
+    public MovieQuery director(String director) {
+        this.director = director;
+        return this;
+    }
+
+    /**
+     * Restricts the result to an inclusive range of release years.
+     *
+     * @param min the earliest year, or {@code null} for no lower bound
+     * @param max the latest year, or {@code null} for no upper bound
+     * @return this query
+     */
+    public MovieQuery yearBetween(Integer min, Integer max) {
+        this.minYear = min;
+        this.maxYear = max;
+        return this;
+    }
+
+    /**
+     * Restricts the result to an inclusive range of ratings.
+     *
+     * @param min the lowest rating, or {@code null} for no lower bound
+     * @param max the highest rating, or {@code null} for no upper bound
+     * @return this query
+     */
+    public MovieQuery ratingBetween(Double min, Double max) {
+        this.minRating = min;
+        this.maxRating = max;
+        return this;
+    }
+
+    /**
+     * Restricts the result to watched or unwatched movies.
+     *
+     * @param watched the required watched status, or {@code null} to remove the criterion
+     * @return this query
+     */
+    public MovieQuery watched(Boolean watched) {
+        this.watched = watched;
+        return this;
+    }
+
+    /**
+     * Sets the sort order. Ties are always broken by ID in the same direction.
+     *
+     * @param sortKey    the column to sort by
+     * @param descending {@code true} for descending order
+     * @return this query
+     */
+    public MovieQuery orderBy(MovieSortKey sortKey, boolean descending) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+        return this;
+    }
+
+    /**
+     * Limits the number of returned movies.
+     *
+     * @param limit the maximum number of movies, or {@code 0} for no limit
+     * @return this query
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public MovieQuery limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit must not be negative.");
+        this.limit = limit;
+        return this;
+    }
+
+    /** @return the maximum number of movies, or {@code 0} for no limit */
+    public int getLimit() { return limit; }
+
+    // ==================== CRITERIA ACCESS ====================
+
+    /** @return the title prefix, or {@code null} */
+    String getTitlePrefix() { return titlePrefix; }
+
+    /** @return the director, or {@code null} */
+    String getDirector() { return director; }
+
+    /** @return the earliest year, or {@code null} */
+    Integer getMinYear() { return minYear; }
+
+    /** @return the latest year, or {@code null} */
+    Integer getMaxYear() { return maxYear; }
+
+    /** @return the lowest rating, or {@code null} */
+    Double getMinRating() { return minRating; }
+
+    /** @return the highest rating, or {@code null} */
+    Double getMaxRating() { return maxRating; }
+
+    /** @return the required watched status, or {@code null} */
+    Boolean getWatched() { return watched; }
+
+    /** @return the column to sort by */
+    MovieSortKey getSortKey() { return sortKey; }
+
+    /** @return {@code true} for descending order */
+    boolean isDescending() { return descending; }
+
+    // ==================== SQL ====================
+
+    /**
+     * Builds the SQL for this query, selecting {@link MovieRowMapper#COLUMNS}.
+     *
+     * @return the parameterized statement text; bind it with {@link #bind(PreparedStatement)}
+     */
+    String toSql() {
+        List<String> where = new ArrayList<>();
+        if (titlePrefix != null) where.add("title LIKE ? ESCAPE '!'");
+        if (director != null) where.add("director = ?");
+        if (minYear != null) where.add("year >= ?");
+        if (maxYear != null) where.add("year <= ?");
+        if (minRating != null) where.add("rating >= ?");
+        if (maxRating != null) where.add("rating <= ?");
+        if (watched != null) where.add("watched = ?");
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(MovieRowMapper.COLUMNS).append(" FROM movies");
+        if (!where.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", where));
+
+        String direction = descending ? " DESC" : "";
+        sql.append(" ORDER BY ");
+        if (sortKey != MovieSortKey.ID) sql.append(sortKey.getColumn()).append(direction).append(", ");
+        sql.append("id").append(direction);
+
+        if (limit > 0) sql.append(" LIMIT ?");
+        return sql.toString();
+    }
+
+    /**
+     * Binds the parameters of {@link #toSql()} in order.
+     *
+     * @param stmt a statement prepared from {@link #toSql()}
+     * @throws SQLException if a parameter cannot be set
+     */
+    void bind(PreparedStatement stmt) throws SQLException {
+        int p = 1;
+        if (titlePrefix != null) stmt.setString(p++, escapeLike(titlePrefix) + "%");
+        if (director != null) stmt.setString(p++, director);
+        if (minYear != null) stmt.setInt(p++, minYear);
+        if (maxYear != null) stmt.setInt(p++, maxYear);
+        if (minRating != null) stmt.setDouble(p++, minRating);
+        if (maxRating != null) stmt.setDouble(p++, maxRating);
+        if (watched != null) stmt.setBoolean(p++, watched);
+        if (limit > 0) stmt.setInt(p, limit);
+    }
+
+    /** Escapes the {@code LIKE} wildcards in a literal prefix using {@code !} as escape character. */
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,196 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary record format of {@link SegmentMovieRepository}.
+ * <p>
+ * Every record starts with an 8-byte header followed by its body:
+ * </p>
+ * <pre>
+ * int    bodyLength
+ * int    crc32(body)
+ * byte   type            PUT or DELETE
+ * int    id
+ * -- PUT only --
+ * int    year
+ * double rating
+ * int    runtimeMinutes
+ * int    votes
+ * byte   watched
+ * str    title           int byte length (-1 for null), then UTF-8 bytes
+ * str    director
+ * </pre>
+ * All numbers are big-endian. The checksum lets a reader detect a record that was only
+ * partly written before a crash.
+ *
+ * @author YourName
+ * @version 1.0
+ */
+final class MovieRecordCodec {
+
+    /** Record type storing the full state of a movie. */
+    static final byte PUT = 1;
+
+    /** Record type marking a movie as deleted. */
+    static final byte DELETE = 2;
+
+    /** Size of the length and checksum fields preceding every body. */
+    static final int HEADER_SIZE = 8;
+
+    /** Largest accepted record, header included; larger length fields are treated as corruption. */
+    static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private static final int DELETE_BODY_SIZE = 1 + 4;
+    private static final int PUT_FIXED_BODY_SIZE = DELETE_BODY_SIZE + 4 + 8 + 4 + 4 + 1 + 4 + 4;
+
+    private MovieRecordCodec() {}
+
+    // ==================== ENCODING ====================
+
+    /**
+     * Encodes the full state of a movie.
+     *
+     * @param id the ID to store, which may differ from {@code m.getId()} for new movies
+     * @param m  the movie
+     * @return the complete record, header included
+     * @throws IllegalArgumentException if the record would exceed {@link #MAX_RECORD_SIZE}
+     */
+    static byte[] encodePut(int id, Movie m) {
+        byte[] title = utf8(m.getTitle());
+        byte[] director = utf8(m.getDirector());
+        int bodyLength = PUT_FIXED_BODY_SIZE + length(title) + length(director);
+        if (HEADER_SIZE + bodyLength > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Movie " + id + " is too large to store.");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + bodyLength);
+        out.position(HEADER_SIZE);
+        out.put(PUT).putInt(id)
+                .putInt(m.getYear())
+                .putDouble(m.getRating())
+                .putInt(m.getRuntimeMinutes())
+                .putInt(m.getVotes())
+                .put((byte) (m.isWatched() ? 1 : 0));
+        putString(out, title);
+        putString(out, director);
+        return seal(out);
+    }
+
+    /**
+     * Encodes the deletion of a movie.
+     *
+     * @param id the ID of the deleted movie
+     * @return the complete record, header included
+     */
+    static byte[] encodeDelete(int id) {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + DELETE_BODY_SIZE);
+        out.position(HEADER_SIZE);
+        out.put(DELETE).putInt(id);
+        return seal(out);
+    }
+
+    /** Fills in the length and checksum of a record whose body has been written after the header. */
+    private static byte[] seal(ByteBuffer out) {
+        byte[] record = out.array();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        out.putInt(0, record.length - HEADER_SIZE);
+        out.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private static byte[] utf8(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        if (bytes == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    // ==================== DECODING ====================
+
+    /**
+     * Reads the total size of the record at {@code pos} from its header.
+     *
+     * @param buf a buffer holding at least the record header at {@code pos}
+     * @param pos the absolute position of the record in {@code buf}
+     * @return the record size including the header, or {@code -1} if the header is
+     *         incomplete or its length field is impossible
+     */
+    static int recordLength(ByteBuffer buf, int pos) {
+        if (pos + HEADER_SIZE > buf.limit()) return -1;
+        int bodyLength = buf.getInt(pos);
+        if (bodyLength < DELETE_BODY_SIZE || bodyLength > MAX_RECORD_SIZE - HEADER_SIZE) return -1;
+        return HEADER_SIZE + bodyLength;
+    }
+
+    /**
+     * Checks that the record at {@code pos} is complete and its checksum matches.
+     *
+     * @param buf a buffer holding the record
+     * @param pos the absolute position of the record in {@code buf}
+     * @return {@code true} if the record is intact
+     */
+    static boolean isIntact(ByteBuffer buf, int pos) {
+        int length = recordLength(buf, pos);
+        if (length < 0 || pos + length > buf.limit()) return false;
+        ByteBuffer body = buf.duplicate();
+        body.limit(pos + length).position(pos + HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == buf.getInt(pos + 4);
+    }
+
+    /** @return the type of the record at {@code pos}, {@link #PUT} or {@link #DELETE} */
+    static byte type(ByteBuffer buf, int pos) {
+        return buf.get(pos + HEADER_SIZE);
+    }
+
+    /** @return the movie ID of the record at {@code pos} */
+    static int id(ByteBuffer buf, int pos) {
+        return buf.getInt(pos + HEADER_SIZE + 1);
+    }
+
+    /**
+     * Decodes a {@link #PUT} record after verifying its checksum.
+     *
+     * @param buf a buffer holding the record
+     * @param pos the absolute position of the record in {@code buf}
+     * @return a new movie with the stored state
+     * @throws IllegalStateException if the record is damaged or not a {@link #PUT} record
+     */
+    static Movie decodePut(ByteBuffer buf, int pos) {
+        if (!isIntact(buf, pos) || type(buf, pos) != PUT) {
+            throw new IllegalStateException("Damaged movie record at position " + pos + ".");
+        }
+        int p = pos + HEADER_SIZE + 1;
+        int id = buf.getInt(p);
+        int year = buf.getInt(p + 4);
+        double rating = buf.getDouble(p + 8);
+        int runtime = buf.getInt(p + 16);
+        int votes = buf.getInt(p + 20);
+        boolean watched = buf.get(p + 24) != 0;
+        p += 25;
+        int titleLength = buf.getInt(p);
+        String title = getString(buf, p + 4, titleLength);
+        p += 4 + Math.max(0, titleLength);
+        String director = getString(buf, p + 4, buf.getInt(p));
+        return new Movie(id, title, year, director, rating, runtime, votes, watched);
+    }
+
+    private static String getString(ByteBuffer buf, int pos, int length) {
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buf.get(pos, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,156 @@
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Storage-independent access to the movie catalog.
+ * <p>
+ * The GUI and other application layers depend only on this interface, so the storage
+ * backend can be chosen at startup:
+ * </p>
+ * <ul>
+ *     <li>{@link MovieDatabaseManager} — MySQL through JDBC.</li>
+ *     <li>{@link InMemoryMovieRepository} — a concurrent map, lost when the program exits.</li>
+ *     <li>{@link FileMovieRepository} — the in-memory map, persisted to a local journal file.</li>
+ *     <li>{@link SegmentMovieRepository} — an embedded append-only store with a memory-mapped index.</li>
+ * </ul>
+ *
+ * <p><b>Contract:</b></p>
+ * <ul>
+ *     <li>Implementations are safe to share between threads.</li>
+ *     <li>Errors are reported the way {@link MovieDatabaseManager} reports them: a failed read
+ *         returns {@code null} or an empty result, a failed write returns {@code null},
+ *         {@code false} or {@code 0} where the method has a result.</li>
+ *     <li>Movies returned by the repository may be modified freely by the caller.</li>
+ * </ul>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * MovieRepository repo = new InMemoryMovieRepository();
+ * Movie saved = repo.addMovie(new Movie("Alien", 1979, "Ridley Scott", 8.5, 117, 900000, true));
+ * new MovieGUI(repo);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public interface MovieRepository {
+
+    // ==================== CRUD OPERATIONS ====================
+
+    /**
+     * Retrieves all movies.
+     *
+     * @return all movies in ascending ID order; an empty list if none exist
+     */
+    ArrayList<Movie> getAllMovies();
+
+    /**
+     * Retrieves a single movie by its ID.
+     *
+     * @param id the unique identifier of the movie
+     * @return the movie, or {@code null} if no movie has the ID
+     */
+    Movie getMovieById(int id);
+
+    /**
+     * Stores a new movie and assigns it an ID.
+     *
+     * @param m the movie to insert; its ID is ignored and replaced by the generated one
+     * @return {@code m} with its generated ID set, or {@code null} if the insert failed
+     */
+    Movie addMovie(Movie m);
+
+    /**
+     * Replaces the stored state of an existing movie. Does nothing if no movie has its ID.
+     *
+     * @param m the movie containing updated information
+     */
+    void updateMovie(Movie m);
+
+    /**
+     * Replaces the stored state of a movie only if it has not changed since {@code m} was read,
+     * as recorded by {@link Movie#getVersion()}.
+     * <p>
+     * Backends that do not track versions update unconditionally; they never report a
+     * conflict, only a missing movie.
+     * </p>
+     *
+     * @param m the edited movie, carrying the version it was read with
+     * @return the outcome, or {@code null} if the update failed
+     */
+    default UpdateResult updateMovieIfCurrent(Movie m) {
+        if (getMovieById(m.getId()) == null) return UpdateResult.notFound(m.getId());
+        updateMovie(m);
+        return UpdateResult.updated(m);
+    }
+
+    /**
+     * Deletes a movie by its ID. Does nothing if no movie has the ID.
+     *
+     * @param id the unique identifier of the movie to delete
+     */
+    void deleteMovie(int id);
+
+    // ==================== BULK OPERATIONS ====================
+
+    /**
+     * Inserts many movies. The generated IDs are also stored on the given objects.
+     *
+     * @param movies the movies to insert
+     * @return the generated IDs and timings of all stored movies
+     */
+    BulkInsertResult addMovies(Collection<Movie> movies);
+
+    /**
+     * Updates many movies as one unit.
+     *
+     * @param movies the movies containing updated information
+     * @return {@code true} if all updates were stored; {@code false} if none were
+     */
+    boolean updateMovies(Collection<Movie> movies);
+
+    /**
+     * Deletes every movie whose ID is in {@code ids}.
+     *
+     * @param ids the IDs of the movies to delete
+     * @return the number of movies deleted
+     */
+    int deleteMovies(int[] ids);
+
+    // ==================== STREAMING ====================
+
+    /**
+     * Streams all movies in ascending ID order without holding them all in memory at once,
+     * where the backend allows it. The stream may hold resources and must be closed,
+     * typically with try-with-resources.
+     *
+     * @return a stream of all movies
+     */
+    Stream<Movie> streamAllMovies();
+
+    // ==================== CHANGE TRACKING ====================
+
+    /**
+     * Returns a token for {@link #getMoviesChangedSince(Timestamp)}.
+     * <p>
+     * Backends without change tracking return {@code null}; callers then reload everything.
+     * </p>
+     *
+     * @return a token marking the current state, or {@code null} if change tracking is not supported
+     */
+    default Timestamp getChangeToken() {
+        return null;
+    }
+
+    /**
+     * Retrieves the movies inserted, updated or deleted since a token.
+     *
+     * @param since a token from {@link #getChangeToken()} or a previous delta
+     * @return the changes and the next token, or {@code null} if they cannot be determined
+     */
+    default MovieChanges getMoviesChangedSince(Timestamp since) {
+        return null;
+    }
+}
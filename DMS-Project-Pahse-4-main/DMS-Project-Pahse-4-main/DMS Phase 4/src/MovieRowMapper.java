@@ -0,0 +1,94 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the {@code movies} table to {@link Movie} objects.
+ * <p>
+ * All full-row queries select the explicit column list {@link #COLUMNS} and read it back
+ * by position, which avoids a name lookup per column and per row and keeps queries stable
+ * if columns are later added to the table.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * String sql = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies WHERE id = ?";
+ * ...
+ * Movie m = MovieRowMapper.map(rs);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public final class MovieRowMapper {
+
+    /** The full column list read by {@link #map(ResultSet)}, in ordinal order. */
+    public static final String COLUMNS = columns(null, MovieField.values());
+
+    private MovieRowMapper() {}
+
+    /**
+     * Returns the full column list qualified with a table alias, for use in joins.
+     *
+     * @param alias the table alias, e.g. {@code "m"}
+     * @return the column list in the same order as {@link #COLUMNS}
+     */
+    public static String columns(String alias) {
+        return columns(alias, MovieField.values());
+    }
+
+    /**
+     * Builds a comma-separated column list for the given fields.
+     *
+     * @param alias  an optional table alias, or {@code null}
+     * @param fields the fields to list, in select order
+     * @return the column list
+     */
+    public static String columns(String alias, MovieField... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (MovieField f : fields) {
+            if (sb.length() > 0) sb.append(", ");
+            if (alias != null) sb.append(alias).append('.');
+            sb.append(f.getColumn());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Maps the current row of a result set that selected {@link #COLUMNS}.
+     *
+     * @param rs the result set positioned on a row
+     * @return the movie for that row
+     * @throws SQLException if a column cannot be read
+     */
+    public static Movie map(ResultSet rs) throws SQLException {
+        Movie m = new Movie(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getInt(3),
+                rs.getString(4),
+                rs.getDouble(5),
+                rs.getInt(6),
+                rs.getInt(7),
+                rs.getBoolean(8)
+        );
+        m.setVersion(rs.getInt(9));
+        return m;
+    }
+
+    /**
+     * Maps the current row of a result set that selected exactly the given fields, in order.
+     * Properties not in the projection keep their default values.
+     *
+     * @param rs     the result set positioned on a row
+     * @param fields the selected fields, in select order
+     * @return a partially populated movie
+     * @throws SQLException if a column cannot be read
+     */
+    public static Movie map(ResultSet rs, MovieField... fields) throws SQLException {
+        Movie m = new Movie();
+        for (int i = 0; i < fields.length; i++) {
+            fields[i].read(rs, i + 1, m);
+        }
+        return m;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * DDL for the {@code movies} schema objects the data access layer relies on.
+ * <p>
+ * This class collects the base table and the additional indexes and objects that
+ * individual {@link MovieDatabaseManager} features need to run efficiently.
+ * {@link SchemaMigrator} applies them as numbered migrations at startup; they can also
+ * be applied by hand from {@code README.md}.
+ * </p>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public final class MovieSchema {
+
+    /** The base {@code movies} table, as documented in {@code README.md}. */
+    public static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS movies ("
+            + "id INT AUTO_INCREMENT PRIMARY KEY, "
+            + "title VARCHAR(255) NOT NULL, "
+            + "year INT NOT NULL, "
+            + "director VARCHAR(255) NOT NULL, "
+            + "rating DOUBLE NOT NULL, "
+            + "runtimeMinutes INT NOT NULL, "
+            + "votes INT NOT NULL, "
+            + "watched TINYINT(1) NOT NULL)";
+
+    /**
+     * Composite {@code (column, id)} indexes used by keyset pagination
+     * ({@link MovieDatabaseManager#getMoviesPage(int, int, MovieSortKey)}).
+     * <p>
+     * With these indexes every page, however deep, is a short range scan that starts
+     * right after the previous page's last row. Sorting by ID uses the primary key.
+     * </p>
+     */
+    public static final String[] PAGINATION_INDEXES = {
+            "CREATE INDEX idx_movies_title_id ON movies (title, id)",
+            "CREATE INDEX idx_movies_year_id ON movies (year, id)",
+            "CREATE INDEX idx_movies_rating_id ON movies (rating, id)"
+    };
+
+    /**
+     * Secondary indexes used by filtered queries ({@link MovieDatabaseManager#findMovies(MovieQuery)}).
+     * <p>
+     * Title prefix, year range and rating range filters use the composite indexes in
+     * {@link #PAGINATION_INDEXES}; these add a director lookup that returns its movies in
+     * year order, and a watched-flag index that keeps movies sorted by rating.
+     * </p>
+     */
+    public static final String[] QUERY_INDEXES = {
+            "CREATE INDEX idx_movies_director_year ON movies (director, year)",
+            "CREATE INDEX idx_movies_watched_rating ON movies (watched, rating)"
+    };
+
+    /**
+     * Covering index for list views ({@link MovieDatabaseManager#getMovieSummaries()}).
+     * <p>
+     * InnoDB secondary indexes also carry the primary key, so {@code (title, year)} holds
+     * every column of the ID/title/year projection and the list is read from the index
+     * alone, already in title order, without touching the table rows.
+     * </p>
+     */
+    public static final String[] LIST_VIEW_INDEXES = {
+            "CREATE INDEX idx_movies_list ON movies (title, year)"
+    };
+
+    /**
+     * Full-text index over title and director used by
+     * {@link MovieDatabaseManager#searchMovies(String, int)} for relevance-ranked search.
+     */
+    public static final String FULLTEXT_INDEX =
+            "CREATE FULLTEXT INDEX ft_movies_title_director ON movies (title, director)";
+
+    /**
+     * Unique index on the natural key {@code (title, year, director)} used by bulk upserts
+     * ({@link MovieDatabaseManager#upsertMovies(java.util.Collection)}).
+     * <p>
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE} relies on it to detect an existing movie.
+     * Creating it fails if the table already holds duplicate natural keys; {@link SchemaMigrator}
+     * then skips it, and upserts fail until the duplicates are removed.
+     * </p>
+     */
+    public static final String NATURAL_KEY_INDEX =
+            "CREATE UNIQUE INDEX uq_movies_natural_key ON movies (title, year, director)";
+
+    /**
+     * Change tracking used by incremental refresh
+     * ({@link MovieDatabaseManager#getMoviesChangedSince(java.sql.Timestamp)}).
+     * <p>
+     * Adds an indexed {@code updated_at} column that the server sets on every insert and
+     * update, and a {@code movie_tombstones} table that a trigger fills on every delete, so
+     * deletions made by any statement or client are visible to the next delta query.
+     * </p>
+     */
+    public static final String[] CHANGE_TRACKING = {
+            "ALTER TABLE movies ADD COLUMN updated_at TIMESTAMP(6) NOT NULL"
+                    + " DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)",
+            "CREATE INDEX idx_movies_updated_at ON movies (updated_at)",
+            "CREATE TABLE movie_tombstones ("
+                    + "id INT PRIMARY KEY, "
+                    + "deleted_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6), "
+                    + "INDEX idx_tombstones_deleted_at (deleted_at))",
+            "CREATE TRIGGER trg_movies_tombstone AFTER DELETE ON movies FOR EACH ROW"
+                    + " INSERT INTO movie_tombstones (id) VALUES (OLD.id)"
+                    + " ON DUPLICATE KEY UPDATE deleted_at = CURRENT_TIMESTAMP(6)"
+    };
+
+    /**
+     * Row version used by optimistic updates
+     * ({@link MovieDatabaseManager#updateMovieIfCurrent(Movie)}).
+     * <p>
+     * Every update made through {@link MovieDatabaseManager} increments the column, so an
+     * {@code UPDATE ... WHERE id = ? AND version = ?} matches only if nobody has changed the
+     * row since it was read. Existing rows start at version {@code 0}.
+     * </p>
+     */
+    public static final String VERSION_COLUMN =
+            "ALTER TABLE movies ADD COLUMN version INT NOT NULL DEFAULT 0";
+
+    private MovieSchema() {}
+}
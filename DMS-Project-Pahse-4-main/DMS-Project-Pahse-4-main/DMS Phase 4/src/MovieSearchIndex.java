@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory inverted index over movie titles and directors.
+ * <p>
+ * Used by {@link MovieDatabaseManager#searchMovies(String, int)} when the database has no
+ * usable {@code FULLTEXT} index. Titles and directors are split into lower-case words; each
+ * word maps to the sorted IDs of the movies containing it. A query word matches every
+ * indexed word it is a prefix of, so partially typed words find results.
+ * </p>
+ *
+ * <p><b>Ranking:</b></p>
+ * Each query word adds its inverse document frequency to every movie it matches, so rare
+ * words weigh more than common ones, and a match in the title counts twice as much as a match
+ * in the director. Ties are broken by ID.
+ *
+ * <p>The index is immutable once built and safe to share between threads.</p>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class MovieSearchIndex {
+
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double DIRECTOR_WEIGHT = 1.0;
+
+    /** Word to postings, sorted by word so prefix lookups are range scans. */
+    private final NavigableMap<String, Postings> words = new TreeMap<>();
+    private final Map<Integer, Movie> movies = new HashMap<>();
+    private final long builtAt = System.currentTimeMillis();
+
+    /**
+     * Builds an index over the given movies.
+     *
+     * @param source the movies to index; the stream is consumed but not closed
+     */
+    public MovieSearchIndex(Stream<Movie> source) {
+        Map<String, List<Integer>> titleIds = new HashMap<>();
+        Map<String, List<Integer>> directorIds = new HashMap<>();
+        source.forEach(m -> {
+            movies.put(m.getId(), m);
+            for (String w : tokenize(m.getTitle())) titleIds.computeIfAbsent(w, k -> new ArrayList<>()).add(m.getId());
+            for (String w : tokenize(m.getDirector())) directorIds.computeIfAbsent(w, k -> new ArrayList<>()).add(m.getId());
+        });
+
+        Set<String> all = new LinkedHashSet<>(titleIds.keySet());
+        all.addAll(directorIds.keySet());
+        for (String w : all) {
+            words.put(w, new Postings(toSortedArray(titleIds.get(w)), toSortedArray(directorIds.get(w))));
+        }
+    }
+
+    /**
+     * Finds the movies best matching a free-text query.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of movies to return
+     * @return copies of the matching movies, most relevant first
+     */
+    public ArrayList<Movie> search(String query, int limit) {
+        Map<Integer, Double> scores = new HashMap<>();
+        int n = Math.max(1, movies.size());
+        for (String term : tokenize(query)) {
+            for (Postings p : words.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                double idf = Math.log(1.0 + (double) n / (p.titleIds.length + p.directorIds.length));
+                for (int id : p.titleIds) scores.merge(id, TITLE_WEIGHT * idf, Double::sum);
+                for (int id : p.directorIds) scores.merge(id, DIRECTOR_WEIGHT * idf, Double::sum);
+            }
+        }
+
+        ArrayList<Movie> result = new ArrayList<>(Math.min(limit, scores.size()));
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(e -> result.add(new Movie(movies.get(e.getKey()))));
+        return result;
+    }
+
+    /** @return the number of indexed movies */
+    public int size() { return movies.size(); }
+
+    /** @return the time the index was built, in epoch milliseconds */
+    public long getBuiltAt() { return builtAt; }
+
+    /**
+     * Splits text into lower-case words of letters and digits.
+     *
+     * @param text the text to split, may be {@code null}
+     * @return the distinct words, in order of first appearance
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) return tokens;
+        for (String t : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return tokens;
+    }
+
+    private static int[] toSortedArray(List<Integer> ids) {
+        if (ids == null) return new int[0];
+        int[] array = ids.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    /** The movies containing one word, by field. */
+    private static final class Postings {
+        final int[] titleIds;
+        final int[] directorIds;
+
+        Postings(int[] titleIds, int[] directorIds) {
+            this.titleIds = titleIds;
+            this.directorIds = directorIds;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * The stable sort orders supported by keyset pagination in
+ * {@link MovieDatabaseManager#getMoviesPage(int, int, MovieSortKey)}.
+ * <p>
+ * Every order is ascending by the chosen column with the movie ID as tie-breaker,
+ * so each row has exactly one position and pages never skip or repeat rows.
+ * Each non-ID key is backed by a composite {@code (column, id)} index declared in
+ * {@link MovieSchema#PAGINATION_INDEXES}.
+ * </p>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public enum MovieSortKey {
+
+    /** Order by primary key only. */
+    ID("id"),
+
+    /** Order by title, then ID. */
+    TITLE("title"),
+
+    /** Order by release year, then ID. */
+    YEAR("year"),
+
+    /** Order by rating, then ID. */
+    RATING("rating");
+
+    private final String column;
+
+    MovieSortKey(String column) {
+        this.column = column;
+    }
+
+    /** @return the {@code movies} column this key sorts by */
+    public String getColumn() { return column; }
+
+    /**
+     * Binds the value of this key taken from the given movie to a statement parameter.
+     *
+     * @param stmt  the statement to bind to
+     * @param index the 1-based parameter index
+     * @param m     the movie supplying the value
+     * @throws SQLException if the parameter cannot be set
+     */
+    void bind(PreparedStatement stmt, int index, Movie m) throws SQLException {
+        switch (this) {
+            case ID:     stmt.setInt(index, m.getId()); break;
+            case TITLE:  stmt.setString(index, m.getTitle()); break;
+            case YEAR:   stmt.setInt(index, m.getYear()); break;
+            case RATING: stmt.setDouble(index, m.getRating()); break;
+        }
+    }
+}
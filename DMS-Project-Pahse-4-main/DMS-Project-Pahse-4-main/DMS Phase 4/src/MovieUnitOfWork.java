@@ -0,0 +1,321 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Groups movie inserts, updates and deletes into a single database transaction.
+ * <p>
+ * A unit of work holds one pooled connection with autocommit switched off from
+ * {@link MovieDatabaseManager#beginUnitOfWork()} until it is closed. Every change made
+ * through it becomes visible to other connections at once on {@link #commit()}, or not at
+ * all on {@link #rollback()}, and the whole unit costs one commit and one log flush instead
+ * of one per statement.
+ * </p>
+ *
+ * <p><b>Lifecycle:</b></p>
+ * <ul>
+ *     <li>After {@link #commit()} or {@link #rollback()} the unit can be used for the next
+ *         transaction on the same connection.</li>
+ *     <li>{@link #setSavepoint(String)} and {@link #rollbackTo(Savepoint)} undo part of a
+ *         transaction without giving up the rest.</li>
+ *     <li>{@link #close()} rolls back anything not yet committed, restores the connection's
+ *         isolation level and returns it to the pool.</li>
+ * </ul>
+ *
+ * <p><b>Caches:</b></p>
+ * The movie cache and derived data of the {@link MovieDatabaseManager} are invalidated for
+ * the affected movies on commit. Pending write-behind updates of those movies are discarded,
+ * because the committed state is newer. IDs generated by {@link #addMovie(Movie)} stay set
+ * on the movie objects even if the insert is later rolled back.
+ *
+ * <p>A unit of work belongs to the thread that began it and must not be shared.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * try (MovieUnitOfWork uow = db.beginUnitOfWork(Connection.TRANSACTION_READ_COMMITTED)) {
+ *     uow.addMovies(imported);
+ *     Savepoint beforeCleanup = uow.setSavepoint("cleanup");
+ *     if (uow.deleteMovies(duplicateIds) != duplicateIds.length) uow.rollbackTo(beforeCleanup);
+ *     uow.commit();
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class MovieUnitOfWork implements AutoCloseable {
+
+    private final MovieDatabaseManager db;
+    private final Connection conn;
+    private final int previousIsolation;
+
+    /** IDs written since the last commit or rollback. */
+    private int[] touched = new int[16];
+    private int touchedCount;
+
+    private boolean closed;
+
+    /**
+     * Starts a unit of work on a borrowed connection. Used by {@link MovieDatabaseManager#beginUnitOfWork(int)}.
+     *
+     * @param db             the manager whose caches are invalidated on commit
+     * @param conn           a pooled connection; returned to the pool when the unit is closed
+     * @param isolationLevel one of the {@code Connection.TRANSACTION_*} levels, or {@code -1} to keep the default
+     * @throws SQLException if the connection could not be configured
+     */
+    MovieUnitOfWork(MovieDatabaseManager db, Connection conn, int isolationLevel) throws SQLException {
+        this.db = db;
+        this.conn = conn;
+        this.previousIsolation = conn.getTransactionIsolation();
+        if (isolationLevel != -1 && isolationLevel != previousIsolation) {
+            conn.setTransactionIsolation(isolationLevel);
+        }
+        conn.setAutoCommit(false);
+    }
+
+    // ==================== CHANGES ====================
+
+    /**
+     * Inserts a movie and stores its generated ID on {@code m}.
+     *
+     * @param m the movie to insert
+     * @return {@code m} with its generated ID set
+     * @throws SQLException if the insert failed
+     */
+    public Movie addMovie(Movie m) throws SQLException {
+        ensureOpen();
+        try (PreparedStatement stmt = conn.prepareStatement(MovieDatabaseManager.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            MovieDatabaseManager.bindInsert(stmt, 1, m);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("No ID was generated for movie \"" + m.getTitle() + "\".");
+                m.setId(keys.getInt(1));
+            }
+        }
+        touch(m.getId());
+        return m;
+    }
+
+    /**
+     * Inserts many movies as JDBC batches and stores the generated IDs on the given objects.
+     *
+     * @param movies the movies to insert
+     * @return the generated IDs, in iteration order
+     * @throws SQLException if a batch failed; the movies already sent remain part of the transaction
+     */
+    public int[] addMovies(Collection<Movie> movies) throws SQLException {
+        ensureOpen();
+        int chunkSize = db.getBatchSize();
+        Movie[] all = movies.toArray(new Movie[0]);
+        int[] ids = new int[all.length];
+
+        try (PreparedStatement stmt = conn.prepareStatement(MovieDatabaseManager.INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int from = 0; from < all.length; from += chunkSize) {
+                int n = Math.min(chunkSize, all.length - from);
+                for (int i = 0; i < n; i++) {
+                    MovieDatabaseManager.bindInsert(stmt, 1, all[from + i]);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    for (int i = 0; i < n && keys.next(); i++) {
+                        ids[from + i] = keys.getInt(1);
+                        all[from + i].setId(ids[from + i]);
+                        touch(ids[from + i]);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Updates a movie.
+     *
+     * @param m the movie containing updated information
+     * @return {@code true} if a row with the movie's ID exists
+     * @throws SQLException if the update failed
+     */
+    public boolean updateMovie(Movie m) throws SQLException {
+        ensureOpen();
+        try (PreparedStatement stmt = conn.prepareStatement(MovieDatabaseManager.UPDATE_SQL)) {
+            MovieDatabaseManager.bindUpdate(stmt, m);
+            touch(m.getId());
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Updates many movies as JDBC batches.
+     *
+     * @param movies the movies containing updated information
+     * @throws SQLException if a batch failed
+     */
+    public void updateMovies(Collection<Movie> movies) throws SQLException {
+        ensureOpen();
+        int chunkSize = db.getBatchSize();
+        try (PreparedStatement stmt = conn.prepareStatement(MovieDatabaseManager.UPDATE_SQL)) {
+            int pending = 0;
+            for (Movie m : movies) {
+                MovieDatabaseManager.bindUpdate(stmt, m);
+                stmt.addBatch();
+                touch(m.getId());
+                if (++pending == chunkSize) {
+                    stmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Deletes a movie.
+     *
+     * @param id the ID of the movie to delete
+     * @return {@code true} if a movie was deleted
+     * @throws SQLException if the delete failed
+     */
+    public boolean deleteMovie(int id) throws SQLException {
+        return deleteMovies(new int[]{id}) > 0;
+    }
+
+    /**
+     * Deletes every movie whose ID is in {@code ids}, using {@code IN (...)} lists of up to
+     * {@link MovieDatabaseManager#getBatchSize()} entries.
+     *
+     * @param ids the IDs of the movies to delete
+     * @return the number of movies deleted
+     * @throws SQLException if a delete failed
+     */
+    public int deleteMovies(int[] ids) throws SQLException {
+        ensureOpen();
+        int chunkSize = db.getBatchSize();
+        int deleted = 0;
+        for (int from = 0; from < ids.length; from += chunkSize) {
+            int n = Math.min(chunkSize, ids.length - from);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM movies WHERE id IN (" + MovieDatabaseManager.repeat("?", n) + ")")) {
+                for (int i = 0; i < n; i++) {
+                    stmt.setInt(i + 1, ids[from + i]);
+                    touch(ids[from + i]);
+                }
+                deleted += stmt.executeUpdate();
+            }
+        }
+        return deleted;
+    }
+
+    // ==================== TRANSACTION CONTROL ====================
+
+    /**
+     * Makes all changes since the last commit or rollback permanent and visible to others.
+     *
+     * @throws SQLException if the commit failed; the transaction is then rolled back by the server
+     */
+    public void commit() throws SQLException {
+        ensureOpen();
+        conn.commit();
+        int[] ids = Arrays.copyOf(touched, touchedCount);
+        touchedCount = 0;
+        if (ids.length > 0) db.unitCommitted(ids);
+    }
+
+    /**
+     * Discards all changes since the last commit or rollback.
+     *
+     * @throws SQLException if the rollback failed
+     */
+    public void rollback() throws SQLException {
+        ensureOpen();
+        touchedCount = 0;
+        conn.rollback();
+    }
+
+    /**
+     * Marks the current point of the transaction.
+     *
+     * @param name a name for the savepoint, unique within the transaction
+     * @return the savepoint, for {@link #rollbackTo(Savepoint)} or {@link #releaseSavepoint(Savepoint)}
+     * @throws SQLException if the savepoint could not be created
+     */
+    public Savepoint setSavepoint(String name) throws SQLException {
+        ensureOpen();
+        return conn.setSavepoint(name);
+    }
+
+    /**
+     * Undoes the changes made after a savepoint; the changes before it stay pending.
+     *
+     * @param savepoint a savepoint of the current transaction
+     * @throws SQLException if the savepoint no longer exists
+     */
+    public void rollbackTo(Savepoint savepoint) throws SQLException {
+        ensureOpen();
+        conn.rollback(savepoint);
+    }
+
+    /**
+     * Removes a savepoint that is no longer needed. The changes after it stay pending.
+     *
+     * @param savepoint a savepoint of the current transaction
+     * @throws SQLException if the savepoint no longer exists
+     */
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        ensureOpen();
+        conn.releaseSavepoint(savepoint);
+    }
+
+    /**
+     * @return the isolation level of the transaction, one of the {@code Connection.TRANSACTION_*} constants
+     * @throws SQLException if the level could not be read
+     */
+    public int getIsolationLevel() throws SQLException {
+        ensureOpen();
+        return conn.getTransactionIsolation();
+    }
+
+    /** @return {@code true} until {@link #close()} has been called */
+    public boolean isOpen() { return !closed; }
+
+    /**
+     * Rolls back uncommitted changes and returns the connection to the pool.
+     * Calling this more than once is harmless.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            conn.rollback();
+            conn.setAutoCommit(true);
+            if (conn.getTransactionIsolation() != previousIsolation) {
+                conn.setTransactionIsolation(previousIsolation);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Unit of work is closed.");
+    }
+
+    private void touch(int id) {
+        if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+        touched[touchedCount++] = id;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * A point-in-time snapshot of the counters and latency percentiles of one data access operation.
+ * <p>
+ * Counters are cumulative since the {@link MovieDaoMetrics} was created. Latencies are in
+ * nanoseconds and include failed calls.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * OperationStats stats = db.getMetrics().snapshot().get("getMovieById");
+ * System.out.printf("p99 %.2f ms%n", stats.getP99Nanos() / 1e6);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class OperationStats {
+
+    private final String operation;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+    private final long elapsedMillis;
+
+    /**
+     * Creates a snapshot from the given values.
+     *
+     * @param operation     the name of the operation, e.g. {@code "getAllMovies"}
+     * @param calls         completed calls, failed ones included
+     * @param errors        calls that failed
+     * @param rows          rows returned or affected by all calls
+     * @param meanNanos     mean latency
+     * @param p50Nanos      median latency
+     * @param p90Nanos      90th percentile latency
+     * @param p99Nanos      99th percentile latency
+     * @param p999Nanos     99.9th percentile latency
+     * @param maxNanos      highest latency
+     * @param elapsedMillis time over which the counters were collected
+     */
+    public OperationStats(String operation, long calls, long errors, long rows, double meanNanos,
+                          long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos,
+                          long elapsedMillis) {
+        this.operation = operation;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /** @return the name of the operation */
+    public String getOperation() { return operation; }
+
+    /** @return the number of completed calls, failed ones included */
+    public long getCalls() { return calls; }
+
+    /** @return the number of calls that failed */
+    public long getErrors() { return errors; }
+
+    /** @return the number of rows returned or affected by all calls */
+    public long getRows() { return rows; }
+
+    /** @return the mean latency in nanoseconds */
+    public double getMeanNanos() { return meanNanos; }
+
+    /** @return the median latency in nanoseconds */
+    public long getP50Nanos() { return p50Nanos; }
+
+    /** @return the 90th percentile latency in nanoseconds */
+    public long getP90Nanos() { return p90Nanos; }
+
+    /** @return the 99th percentile latency in nanoseconds */
+    public long getP99Nanos() { return p99Nanos; }
+
+    /** @return the 99.9th percentile latency in nanoseconds */
+    public long getP999Nanos() { return p999Nanos; }
+
+    /** @return the highest latency in nanoseconds */
+    public long getMaxNanos() { return maxNanos; }
+
+    /** @return the time over which the counters were collected */
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    /** @return calls per second over {@link #getElapsedMillis()}, or {@code 0} if no time has passed */
+    public double getThroughput() {
+        return elapsedMillis == 0 ? 0 : calls * 1000.0 / elapsedMillis;
+    }
+
+    /** @return failed calls divided by all calls, or {@code 0} if there were none */
+    public double getErrorRate() {
+        return calls == 0 ? 0 : (double) errors / calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls (%.1f/s), %d errors, %d rows, mean %.3f ms,"
+                        + " p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                operation, calls, getThroughput(), errors, rows, meanNanos / 1e6,
+                p50Nanos / 1e6, p90Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6, maxNanos / 1e6);
+    }
+}
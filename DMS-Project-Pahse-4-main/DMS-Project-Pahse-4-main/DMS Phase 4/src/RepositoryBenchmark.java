@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Compares the throughput of the {@link MovieRepository} implementations side by side.
+ * <p>
+ * Each backend runs the same workload on the same generated movies: a bulk insert, single
+ * inserts, random lookups by ID, single updates, a full read, a streamed read and a bulk
+ * delete of everything the run inserted. The result is printed as one row per operation and
+ * one column of operations per second per backend.
+ * </p>
+ * <p>
+ * The single inserts use movies of their own, so they never collide with the bulk-inserted
+ * ones on the natural key. Only operations that succeeded are counted: failed inserts are
+ * left out, and only movies that were actually stored are updated and deleted.
+ * </p>
+ *
+ * <p><b>Backends:</b></p>
+ * The in-memory, file-backed and segment repositories always run, on a temporary journal or
+ * directory that is deleted afterwards. The JDBC backend runs only when a URL, user and
+ * password are given. It works on the real {@code movies} table and removes only the rows
+ * it inserted.
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * java RepositoryBenchmark 20000
+ * java -cp .:lib/mysql-connector-j-9.5.0.jar RepositoryBenchmark 20000 jdbc:mysql://localhost:3306/moviesdb root secret
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class RepositoryBenchmark {
+
+    /** Default number of movies per bulk insert. */
+    public static final int DEFAULT_ROWS = 10_000;
+
+    private static final String[] OPERATIONS = {
+            "addMovies", "addMovie", "getMovieById", "updateMovie", "getAllMovies", "streamAllMovies", "deleteMovies"
+    };
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args {@code [rows] [jdbcUrl user password]}
+     * @throws IOException if the temporary journal or directory cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        List<Movie> movies = generate(rows, 42, "Benchmark Movie ");
+        List<Movie> singles = generate(Math.max(1, rows / 10), 43, "Benchmark Single ");
+        Map<String, double[]> results = new LinkedHashMap<>();
+
+        results.put("memory", run(new InMemoryMovieRepository(), movies, singles));
+
+        Path journal = Files.createTempFile("movies-benchmark", ".journal");
+        try (FileMovieRepository repo = new FileMovieRepository(journal)) {
+            results.put("file", run(repo, movies, singles));
+        } finally {
+            Files.deleteIfExists(journal);
+        }
+
+        Path store = Files.createTempDirectory("movies-benchmark");
+        try (SegmentMovieRepository repo = new SegmentMovieRepository(store)) {
+            results.put("segment", run(repo, movies, singles));
+        } finally {
+            deleteRecursively(store);
+        }
+
+        if (args.length >= 4) {
+            ConnectionPool pool = new ConnectionPool(args[1], args[2], args[3]);
+            try {
+                results.put("jdbc", run(new MovieDatabaseManager(pool), movies, singles));
+            } finally {
+                pool.close();
+            }
+        }
+
+        print(rows, results);
+    }
+
+    /**
+     * Runs the workload against one repository.
+     *
+     * @param template        the movies inserted in bulk
+     * @param singleTemplates the movies inserted and updated one at a time
+     * @return operations per second, in the order of {@link #OPERATIONS}
+     */
+    private static double[] run(MovieRepository repo, List<Movie> template, List<Movie> singleTemplates) {
+        double[] opsPerSecond = new double[OPERATIONS.length];
+        Random random = new Random(7);
+
+        List<Movie> bulk = copies(template);
+        long start = System.nanoTime();
+        BulkInsertResult inserted = repo.addMovies(bulk);
+        opsPerSecond[0] = rate(inserted.getInsertedCount(), start);
+
+        List<Movie> single = new ArrayList<>();
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (int id : inserted.getGeneratedIds()) ids.add(id);
+        start = System.nanoTime();
+        for (Movie m : copies(singleTemplates)) {
+            Movie saved = repo.addMovie(m);
+            if (saved != null) single.add(saved);
+        }
+        opsPerSecond[1] = rate(single.size(), start);
+        for (Movie m : single) ids.add(m.getId());
+
+        int lookups = Math.max(1, ids.size());
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            repo.getMovieById(ids.get(random.nextInt(ids.size())));
+        }
+        opsPerSecond[2] = rate(lookups, start);
+
+        start = System.nanoTime();
+        for (Movie m : single) {
+            m.setVotes(m.getVotes() + 1);
+            repo.updateMovie(m);
+        }
+        opsPerSecond[3] = rate(single.size(), start);
+
+        start = System.nanoTime();
+        int read = repo.getAllMovies().size();
+        opsPerSecond[4] = rate(read, start);
+
+        start = System.nanoTime();
+        long streamed;
+        try (Stream<Movie> all = repo.streamAllMovies()) {
+            streamed = all.count();
+        }
+        opsPerSecond[5] = rate(streamed, start);
+
+        int[] toDelete = ids.stream().mapToInt(Integer::intValue).toArray();
+        start = System.nanoTime();
+        int deleted = repo.deleteMovies(toDelete);
+        opsPerSecond[6] = rate(deleted, start);
+        return opsPerSecond;
+    }
+
+    /** @return operations per second for {@code operations} completed since {@code startNanos} */
+    private static double rate(long operations, long startNanos) {
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        return operations * 1e9 / elapsed;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path f : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(f);
+            }
+        }
+    }
+
+    private static List<Movie> copies(List<Movie> movies) {
+        List<Movie> result = new ArrayList<>(movies.size());
+        for (Movie m : movies) result.add(new Movie(m));
+        return result;
+    }
+
+    /**
+     * Generates reproducible pseudo-random movies.
+     *
+     * @param count  the number of movies
+     * @param seed   the random seed
+     * @param prefix the start of every title, followed by the movie's index
+     * @return the movies, without IDs
+     */
+    static List<Movie> generate(int count, long seed, String prefix) {
+        Random random = new Random(seed);
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            movies.add(new Movie(
+                    prefix + i,
+                    1920 + random.nextInt(105),
+                    "Director " + random.nextInt(count / 10 + 1),
+                    Math.round(random.nextDouble() * 100) / 10.0,
+                    60 + random.nextInt(120),
+                    random.nextInt(1_000_000),
+                    random.nextBoolean()));
+        }
+        return movies;
+    }
+
+    private static void print(int rows, Map<String, double[]> results) {
+        System.out.printf("%d movies, operations per second%n", rows);
+        System.out.printf("%-16s", "operation");
+        for (String backend : results.keySet()) System.out.printf("%14s", backend);
+        System.out.println();
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            System.out.printf("%-16s", OPERATIONS[op]);
+            for (double[] r : results.values()) System.out.printf("%14.0f", r[op]);
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often and how patiently an idempotent database read is retried after a transient error.
+ * <p>
+ * Before retry {@code n} (counting from 1) the caller waits a random time between {@code 0} and
+ * {@code min(maxDelayMillis, baseDelayMillis * 2^(n-1))} ("full jitter"). The exponential
+ * growth gives a restarting server room to come back, and the randomness keeps many clients
+ * that failed at the same moment from retrying in lockstep.
+ * </p>
+ *
+ * <p><b>Retryable Errors:</b></p>
+ * Only errors that may succeed on another try are retried: JDBC's transient and recoverable
+ * exception types (lost connection, pool timeout, deadlock or lock wait timeout) and any error
+ * in SQLState class {@code 08} (connection exception). Syntax errors, constraint violations
+ * and the like fail at once.
+ *
+ * <p>Instances are immutable.</p>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public final class RetryPolicy {
+
+    /** Three attempts in total, starting with a 100 ms backoff and never waiting more than 2 s. */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 100, 2_000);
+
+    /** A single attempt without retries. */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 1, 1);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param maxAttempts     total number of attempts including the first (at least 1)
+     * @param baseDelayMillis upper bound of the first backoff (at least 1)
+     * @param maxDelayMillis  upper bound of any backoff (at least {@code baseDelayMillis})
+     * @throws IllegalArgumentException if an argument is out of range
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("At least one attempt is required.");
+        if (baseDelayMillis < 1) throw new IllegalArgumentException("Base delay must be at least 1 ms.");
+        if (maxDelayMillis < baseDelayMillis) throw new IllegalArgumentException("Maximum delay must not be below the base delay.");
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /** @return total number of attempts including the first */
+    public int getMaxAttempts() { return maxAttempts; }
+
+    /** @return upper bound of the first backoff */
+    public long getBaseDelayMillis() { return baseDelayMillis; }
+
+    /** @return upper bound of any backoff */
+    public long getMaxDelayMillis() { return maxDelayMillis; }
+
+    /**
+     * Picks the time to wait before a retry.
+     *
+     * @param retry the number of the retry, starting at 1
+     * @return a random delay between 0 and the capped exponential bound, in milliseconds
+     */
+    public long backoffMillis(int retry) {
+        int shift = Math.min(retry - 1, 30);
+        long bound = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    /**
+     * Decides whether an error may go away on another attempt.
+     *
+     * @param e the error of the failed attempt
+     * @return {@code true} if retrying makes sense
+     */
+    public static boolean isRetryable(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) return true;
+        return isConnectionError(e);
+    }
+
+    /**
+     * @param e a database error
+     * @return {@code true} if the error is in SQLState class {@code 08}, meaning the connection failed
+     */
+    public static boolean isConnectionError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+}
@@ -0,0 +1,213 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates and upgrades the {@code movies} schema through numbered migrations.
+ * <p>
+ * Each migration is applied once, in version order, and recorded in the
+ * {@code schema_migrations} table, so a startup against an up-to-date database costs a
+ * single query. The migrations install the base table and the indexes and objects
+ * declared in {@link MovieSchema}.
+ * </p>
+ *
+ * <p><b>Idempotence:</b></p>
+ * MySQL commits DDL implicitly, so a migration interrupted half-way cannot be rolled back.
+ * Statements that fail only because their object already exists (e.g. an index created by
+ * hand from {@code README.md}) are therefore treated as applied, and re-running a partially
+ * applied migration completes it. A server-side named lock keeps two application instances
+ * from migrating at the same time.
+ *
+ * <p><b>Optional Migrations:</b></p>
+ * Some migrations only speed up or enable individual features and can fail on existing data,
+ * e.g. the natural-key index when the table already holds duplicate movies. Such a migration
+ * is reported and skipped, stays unrecorded so it is retried on the next start, and does not
+ * hold back the migrations after it. Every other failure stops {@link #migrate()}.
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * int applied = new SchemaMigrator(pool).migrate();
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class SchemaMigrator {
+
+    /** MySQL errors meaning the object a statement creates already exists. */
+    private static final Set<Integer> ALREADY_EXISTS_ERRORS = Set.of(
+            1050,   // ER_TABLE_EXISTS_ERROR
+            1060,   // ER_DUP_FIELDNAME
+            1061,   // ER_DUP_KEYNAME
+            1359    // ER_TRG_ALREADY_EXISTS
+    );
+
+    private static final String LOCK_NAME = "movies_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    /** All migrations, in the order they are applied. Never change or reorder a released entry. */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create movies table", MovieSchema.CREATE_TABLE),
+            new Migration(2, "Title, year and rating indexes", MovieSchema.PAGINATION_INDEXES),
+            new Migration(3, "Director and watched indexes", MovieSchema.QUERY_INDEXES),
+            new Migration(4, "Covering index for list views", MovieSchema.LIST_VIEW_INDEXES),
+            new Migration(5, "Change tracking", MovieSchema.CHANGE_TRACKING),
+            Migration.optional(6, "Natural key for upserts", MovieSchema.NATURAL_KEY_INDEX),
+            Migration.optional(7, "Full-text index for search", MovieSchema.FULLTEXT_INDEX),
+            new Migration(8, "Row versions for optimistic updates", MovieSchema.VERSION_COLUMN)
+    );
+
+    private final ConnectionPool pool;
+
+    /**
+     * Creates a migrator for the database behind the given pool.
+     *
+     * @param pool the pool to borrow a connection from
+     */
+    public SchemaMigrator(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Applies all migrations not yet recorded in {@code schema_migrations}.
+     * <p>
+     * Stops at the first required migration that fails; earlier ones stay applied and recorded,
+     * and the failed one is retried on the next start. Optional migrations that fail are
+     * reported on {@code System.err} and skipped.
+     * </p>
+     *
+     * @return the number of migrations applied by this call
+     * @throws SQLException if the migration lock could not be taken or a migration failed
+     */
+    public int migrate() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            lock(conn);
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                            + "version INT PRIMARY KEY, "
+                            + "description VARCHAR(255) NOT NULL, "
+                            + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+                }
+
+                Set<Integer> applied = appliedVersions(conn);
+                int count = 0;
+                for (Migration m : MIGRATIONS) {
+                    if (applied.contains(m.version)) continue;
+                    try {
+                        apply(conn, m);
+                        count++;
+                    } catch (SQLException e) {
+                        if (!m.optional) throw e;
+                        System.err.println("Skipped optional schema migration: " + e.getMessage());
+                    }
+                }
+                return count;
+            } finally {
+                unlock(conn);
+            }
+        }
+    }
+
+    /**
+     * Returns the highest applied migration version.
+     *
+     * @return the current schema version, or {@code 0} if no migration has been applied
+     * @throws SQLException if the version table cannot be read
+     */
+    public int getCurrentVersion() throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_migrations")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /** @return the version of the newest migration this build knows */
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_migrations")) {
+            while (rs.next()) versions.add(rs.getInt(1));
+        }
+        return versions;
+    }
+
+    /** Runs the statements of one migration and records it. */
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : m.statements) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_EXISTS_ERRORS.contains(e.getErrorCode())) {
+                        throw new SQLException("Migration " + m.version + " (" + m.description + ") failed: "
+                                + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                    }
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT IGNORE INTO schema_migrations (version, description) VALUES (?, ?)")) {
+            stmt.setInt(1, m.version);
+            stmt.setString(2, m.description);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock.");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException ignored) {
+            // The lock is released anyway when the session ends
+        }
+    }
+
+    /** One numbered schema change. */
+    private static final class Migration {
+        final int version;
+        final String description;
+        final List<String> statements;
+        final boolean optional;
+
+        Migration(int version, String description, String... statements) {
+            this(version, description, false, statements);
+        }
+
+        private Migration(int version, String description, boolean optional, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.optional = optional;
+            this.statements = Arrays.asList(statements);
+        }
+
+        /** Creates a migration whose failure does not stop the migrations after it. */
+        static Migration optional(int version, String description, String... statements) {
+            return new Migration(version, description, true, statements);
+        }
+    }
+}
@@ -0,0 +1,1052 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An embedded {@link MovieRepository} that stores movies in an append-only segment file
+ * with a memory-mapped index, for deployments without a database server.
+ * <p>
+ * Every write appends compact binary records (see {@link MovieRecordCodec}) to the segment;
+ * nothing is ever overwritten in place. The index file maps each movie ID to the offset of
+ * its latest record, one 8-byte slot per ID, and is memory-mapped, so opening a store only
+ * maps the index instead of reading the movies. A lookup by ID is one index read and one
+ * record read.
+ * </p>
+ *
+ * <p><b>Files:</b></p>
+ * A store is a directory holding {@code movies-<generation>.seg}, {@code movies-<generation>.idx}
+ * and a {@code CURRENT} file naming the live generation. Compaction writes the next
+ * generation and switches {@code CURRENT} atomically.
+ *
+ * <p><b>Durability:</b></p>
+ * <ul>
+ *     <li>A write returns only after its records have been forced to disk. Writers that
+ *         finish while another writer's {@code fsync} is in progress share the next one
+ *         (group commit), so concurrent and bulk writes pay few syncs.</li>
+ *     <li>The index is flushed and its header records the covered segment length at every
+ *         checkpoint (see {@link #CHECKPOINT_INTERVAL_MILLIS}) and on {@link #close()}.</li>
+ *     <li>After a crash, records written since the last checkpoint are replayed into the index
+ *         and a partly written last record is cut off. Should the index refer to data that
+ *         never reached the disk, it is rebuilt from the segment.</li>
+ *     <li>If an {@code fsync} fails, the writes waiting for it report failure, but their records
+ *         are already readable and may or may not survive. A failed sync cannot be retried
+ *         reliably, so the store then becomes read-only (see {@link #isFailed()}) and every later
+ *         write fails at once. Reopening the store decides from the disk what survived.</li>
+ * </ul>
+ *
+ * <p><b>Compaction:</b></p>
+ * Updates and deletes leave superseded records behind. A background thread copies the live
+ * records into a new generation once more than half of the segment (and at least
+ * {@link #COMPACT_MIN_GARBAGE_BYTES}) is superseded. Reads and writes continue while the live
+ * records are copied; writers only wait while the records appended meanwhile are carried over.
+ *
+ * <p><b>Concurrency:</b></p>
+ * Reads run in parallel with each other and with writes. Writes are serialized. Only one
+ * repository instance may use a directory at a time.
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * try (SegmentMovieRepository repo = new SegmentMovieRepository(Path.of("moviestore"))) {
+ *     Movie saved = repo.addMovie(movie);
+ *     Movie again = repo.getMovieById(saved.getId());
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class SegmentMovieRepository implements MovieRepository, AutoCloseable {
+
+    /** Time between background checkpoints and compaction checks. */
+    public static final long CHECKPOINT_INTERVAL_MILLIS = 1_000;
+
+    /** Superseded bytes below which the segment is never compacted automatically. */
+    public static final long COMPACT_MIN_GARBAGE_BYTES = 1L << 20;
+
+    private static final long SEGMENT_MAGIC = 0x4D4F565345473031L; // "MOVSEG01"
+    private static final int SEGMENT_HEADER_SIZE = 8;
+
+    private static final int INDEX_MAGIC = 0x4D4F5649; // "MOVI"
+    private static final int IDX_NEXT_ID = 4;
+    private static final int IDX_CHECKPOINT = 8;
+    private static final int IDX_SIZE = 16;
+    private static final int IDX_CLEAN = 20;
+    private static final int IDX_GARBAGE = 24;
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 16;
+
+    /** Number of movies read per lock acquisition while streaming. */
+    private static final int STREAM_BATCH = 1024;
+
+    /** Buffer size for sequential segment scans; holds any complete record. */
+    private static final int SCAN_BUFFER_SIZE = 2 * MovieRecordCodec.MAX_RECORD_SIZE;
+
+    /** Index slots are read and written with acquire/release semantics. */
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path dir;
+
+    /** Held shared by readers and exclusively while files are swapped or closed. */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    /** Serializes writers. Always acquired before {@link #swapLock}. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Prevents two compactions from running at once. */
+    private final ReentrantLock compactLock = new ReentrantLock();
+
+    // ----- current generation; replaced under the swap write lock -----
+    private volatile long generation;
+    private FileChannel segment;
+    private FileChannel indexChannel;
+
+    /** Index slots: {@code > 0} offset of a PUT record, {@code < 0} negated offset of a DELETE record, {@code 0} never stored. */
+    private volatile MappedByteBuffer index;
+
+    /** Read-only mapping of the segment up to the last checkpoint; {@code null} if it cannot be mapped. */
+    private volatile ByteBuffer view;
+
+    /** Segment length; every record before it is complete and indexed. */
+    private volatile long end;
+
+    private volatile int nextId;
+    private volatile int size;
+    private volatile long garbage;
+
+    /** Segment length covered by the last checkpoint. Used by the maintenance thread. */
+    private long checkpointEnd;
+
+    private volatile boolean closed;
+
+    /** The sync error that made the store read-only, or {@code null} while it is writable. */
+    private volatile IOException failure;
+
+    // ----- group commit, guarded by syncLock -----
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncDone = syncLock.newCondition();
+    private long syncedGeneration;
+    private long syncedEnd;
+    private boolean syncing;
+    private long syncCount;
+
+    private final ScheduledExecutorService maintenance;
+
+    /**
+     * Opens the store in a directory, creating it if necessary.
+     * <p>
+     * After a clean {@link #close()} this only maps the index; after a crash the records
+     * since the last checkpoint are replayed first.
+     * </p>
+     *
+     * @param dir the store directory
+     * @throws IOException if the store cannot be created, read or recovered
+     */
+    public SegmentMovieRepository(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        Path current = dir.resolve("CURRENT");
+        long gen;
+        if (Files.exists(current)) {
+            gen = Long.parseLong(Files.readString(current, StandardCharsets.UTF_8).trim());
+        } else {
+            gen = 1;
+            createGeneration(gen);
+            writeCurrent(gen);
+        }
+        openGeneration(gen);
+        deleteOtherGenerations(gen);
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "movie-segment-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintainQuietly,
+                CHECKPOINT_INTERVAL_MILLIS, CHECKPOINT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== CRUD OPERATIONS ====================
+
+    @Override
+    public ArrayList<Movie> getAllMovies() {
+        ArrayList<Movie> movies = new ArrayList<>(size);
+        try (Stream<Movie> all = streamAllMovies()) {
+            all.forEach(movies::add);
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+        return movies;
+    }
+
+    @Override
+    public Movie getMovieById(int id) {
+        swapLock.readLock().lock();
+        try {
+            if (closed) return null;
+            long slot = slot(index, id);
+            return slot > 0 ? readMovie(slot) : null;
+        } catch (IOException | IllegalStateException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Movie addMovie(Movie m) {
+        Movie copy = new Movie(m);
+        if (write(List.of(copy), true, null) < 0) return null;
+        m.setId(copy.getId());
+        return m;
+    }
+
+    @Override
+    public void updateMovie(Movie m) {
+        write(List.of(m), false, null);
+    }
+
+    @Override
+    public void deleteMovie(int id) {
+        write(List.of(), false, new int[]{id});
+    }
+
+    // ==================== BULK OPERATIONS ====================
+
+    /**
+     * Inserts many movies with a single append and a single {@code fsync}.
+     *
+     * @param movies the movies to insert
+     * @return the generated IDs of all stored movies as one chunk; empty if the write failed
+     */
+    @Override
+    public BulkInsertResult addMovies(Collection<Movie> movies) {
+        long start = System.nanoTime();
+        List<Movie> copies = new ArrayList<>(movies.size());
+        for (Movie m : movies) copies.add(new Movie(m));
+        if (write(copies, true, null) < 0) return new BulkInsertResult(new int[0], new long[0]);
+
+        int[] ids = new int[copies.size()];
+        int i = 0;
+        for (Movie m : movies) {
+            ids[i] = copies.get(i).getId();
+            m.setId(ids[i++]);
+        }
+        return new BulkInsertResult(ids, new long[]{System.nanoTime() - start});
+    }
+
+    @Override
+    public boolean updateMovies(Collection<Movie> movies) {
+        return write(new ArrayList<>(movies), false, null) >= 0;
+    }
+
+    @Override
+    public int deleteMovies(int[] ids) {
+        return Math.max(0, write(List.of(), false, ids));
+    }
+
+    // ==================== STREAMING ====================
+
+    /**
+     * Streams all movies in ascending ID order, reading them in small batches. Changes made
+     * while the stream is consumed may or may not be seen.
+     *
+     * @return a stream of all movies; a read error is rethrown as {@link IllegalStateException}
+     */
+    @Override
+    public Stream<Movie> streamAllMovies() {
+        Spliterator<Movie> movies = new Spliterators.AbstractSpliterator<Movie>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private final ArrayDeque<Movie> batch = new ArrayDeque<>(STREAM_BATCH);
+            private int nextToRead = 1;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Movie> action) {
+                if (batch.isEmpty()) nextToRead = readBatch(nextToRead, batch);
+                Movie m = batch.poll();
+                if (m == null) return false;
+                action.accept(m);
+                return true;
+            }
+        };
+        return StreamSupport.stream(movies, false);
+    }
+
+    /**
+     * Reads up to {@link #STREAM_BATCH} movies with IDs from {@code from} upwards.
+     *
+     * @return the first ID not yet examined
+     */
+    private int readBatch(int from, ArrayDeque<Movie> out) {
+        swapLock.readLock().lock();
+        try {
+            if (closed) throw new IllegalStateException("Movie store is closed.");
+            ByteBuffer v = view;
+            if (v != null && v.capacity() < end) view = mapView(segment, end);  // scans read from memory
+            MappedByteBuffer idx = index;
+            int limit = nextId;
+            int id = from;
+            while (id < limit && out.size() < STREAM_BATCH) {
+                long slot = slot(idx, id++);
+                if (slot > 0) out.add(readMovie(slot));
+            }
+            return id;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read movies.", e);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // ==================== WRITING ====================
+
+    /**
+     * Appends one record per affected movie in a single write, updates the index and waits
+     * until the records are durable.
+     *
+     * @param puts      movies to store
+     * @param insert    {@code true} to assign new IDs to {@code puts} (which must be copies);
+     *                  {@code false} to store only movies that already exist
+     * @param deleteIds IDs to delete; IDs that do not exist are ignored
+     * @return the number of movies affected, or {@code -1} if the write failed; if the store
+     *         {@link #isFailed() failed} during the write, its records may still be stored
+     */
+    private int write(List<Movie> puts, boolean insert, int[] deleteIds) {
+        long gen;
+        long target;
+        int affected;
+        writeLock.lock();
+        try {
+            if (closed) throw new IOException("Movie store is closed.");
+            checkWritable();
+            List<byte[]> records = new ArrayList<>();
+            int id = nextId;
+            for (Movie m : puts) {
+                if (insert) {
+                    m.setId(id++);
+                } else if (slot(index, m.getId()) <= 0) {
+                    continue;
+                }
+                records.add(MovieRecordCodec.encodePut(m.getId(), m));
+            }
+            if (deleteIds != null) {
+                for (int d : Arrays.stream(deleteIds).distinct().toArray()) {
+                    if (slot(index, d) > 0) records.add(MovieRecordCodec.encodeDelete(d));
+                }
+            }
+            affected = records.size();
+            if (affected == 0) return 0;
+
+            long offset = append(records);
+            for (byte[] record : records) {
+                ByteBuffer r = ByteBuffer.wrap(record);
+                index(MovieRecordCodec.type(r, 0), MovieRecordCodec.id(r, 0), offset, record.length);
+                offset += record.length;
+            }
+            gen = generation;
+            target = end;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            writeLock.unlock();
+        }
+        return awaitDurable(gen, target) ? affected : -1;
+    }
+
+    /**
+     * Appends records at the end of the segment in one write. Caller holds {@link #writeLock}.
+     *
+     * @return the offset of the first record
+     * @throws IOException if the write fails; the segment is then cut back to its previous end
+     */
+    private long append(List<byte[]> records) throws IOException {
+        int total = 0;
+        for (byte[] r : records) total += r.length;
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        for (byte[] r : records) buf.put(r);
+        buf.flip();
+
+        long start = end;
+        try {
+            while (buf.hasRemaining()) {
+                segment.write(buf, start + buf.position());
+            }
+        } catch (IOException e) {
+            try {
+                segment.truncate(start);
+            } catch (IOException ignored) {
+                // Recovery cuts the partial record off on the next open
+            }
+            throw e;
+        }
+        end = start + total;
+        return start;
+    }
+
+    /**
+     * Points the index at a record just appended and updates the counters.
+     * Caller holds {@link #writeLock}, or is opening the store.
+     */
+    private void index(byte type, int id, long offset, int length) throws IOException {
+        ensureCapacity(id);
+        long previous = slot(index, id);
+        long superseded = previous > 0 ? recordLength(previous) : 0;
+        if (type == MovieRecordCodec.PUT) {
+            if (previous <= 0) size++;
+            garbage += superseded;
+            setSlot(id, offset);
+            if (id >= nextId) nextId = id + 1;
+        } else {
+            if (previous > 0) size--;
+            garbage += superseded + length;
+            setSlot(id, -offset);
+        }
+    }
+
+    /**
+     * Waits until the segment is durable up to {@code target}, performing the {@code fsync}
+     * itself unless another writer's sync in progress will cover it.
+     *
+     * @return {@code false} if the sync failed, now or for an earlier write
+     */
+    private boolean awaitDurable(long gen, long target) {
+        syncLock.lock();
+        try {
+            while (true) {
+                // A newer generation was fully synced when compaction switched to it
+                if (syncedGeneration != gen || syncedEnd >= target) return true;
+                if (failure != null) return false;  // a second fsync could falsely report success
+                if (!syncing) break;
+                syncDone.awaitUninterruptibly();
+            }
+            syncing = true;
+        } finally {
+            syncLock.unlock();
+        }
+
+        long reached = 0;
+        boolean ok = false;
+        swapLock.readLock().lock();
+        try {
+            if (generation == gen && !closed) {
+                reached = end;
+                segment.force(false);
+            }
+            // Otherwise compaction or close has already forced everything
+            ok = true;
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            swapLock.readLock().unlock();
+            syncLock.lock();
+            try {
+                syncing = false;
+                if (ok && syncedGeneration == gen && reached > syncedEnd) {
+                    syncedEnd = reached;
+                    syncCount++;
+                }
+                syncDone.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+        return ok;
+    }
+
+    /** @throws IOException if the store is read-only after a failed sync */
+    private void checkWritable() throws IOException {
+        IOException f = failure;
+        if (f != null) throw new IOException("Movie store is read-only after a failed sync.", f);
+    }
+
+    /** Makes the store read-only after a failed {@code fsync} of the live segment or index. */
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+            System.err.println("Movie store " + dir + " is read-only after a failed sync; reopen it to recover.");
+        }
+        e.printStackTrace();
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    private void maintainQuietly() {
+        if (failure != null) return;
+        try {
+            checkpoint();
+            if (garbage >= COMPACT_MIN_GARBAGE_BYTES && garbage * 2 > end - SEGMENT_HEADER_SIZE
+                    && compactLock.tryLock()) {
+                try {
+                    compactLocked();
+                } finally {
+                    compactLock.unlock();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Flushes the segment and the index and records the covered segment length in the index
+     * header, so the next open only replays records written after this point.
+     */
+    private void checkpoint() throws IOException {
+        long gen;
+        long covered;
+        int next;
+        int count;
+        long superseded;
+        writeLock.lock();
+        try {
+            gen = generation;
+            covered = end;
+            next = nextId;
+            count = size;
+            superseded = garbage;
+        } finally {
+            writeLock.unlock();
+        }
+
+        swapLock.readLock().lock();
+        try {
+            if (closed || failure != null || generation != gen || covered == checkpointEnd) return;
+            try {
+                segment.force(false);
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+            index.force();
+            writeIndexHeader(index, next, covered, count, superseded, false);
+            index.force(0, INDEX_HEADER_SIZE);
+            checkpointEnd = covered;
+            view = mapView(segment, covered);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the store to contain only the current state of each movie.
+     * <p>
+     * Also runs automatically in the background when enough of the segment is superseded.
+     * Reads and writes may continue while it runs.
+     * </p>
+     *
+     * @throws IOException if the new generation cannot be written, or the store is
+     *                     {@link #isFailed() read-only}; the store stays as it was
+     */
+    public void compact() throws IOException {
+        compactLock.lock();
+        try {
+            compactLocked();
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    /** Copies the live records to the next generation and switches to it. Caller holds {@link #compactLock}. */
+    private void compactLocked() throws IOException {
+        // Copying records of unknown durability into a synced generation would report them as stored
+        checkWritable();
+        long oldGen = generation;
+        long newGen = oldGen + 1;
+        Path newSegmentPath = segmentPath(newGen);
+        Path newIndexPath = indexPath(newGen);
+        FileChannel newSegment = null;
+        FileChannel newIndexChannel = null;
+        boolean switched = false;
+        try {
+            newSegment = FileChannel.open(newSegmentPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            newIndexChannel = FileChannel.open(newIndexPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            SegmentWriter out = new SegmentWriter(newSegment);
+            MappedByteBuffer newIndex;
+            long copiedUpTo;
+
+            // Phase 1: copy the live records without blocking writers
+            swapLock.readLock().lock();
+            try {
+                if (closed) return;
+                copiedUpTo = end;
+                int limit = nextId;
+                newIndex = newIndexChannel.map(FileChannel.MapMode.READ_WRITE, 0, index.capacity());
+                for (int id = 1; id < limit; id++) {
+                    long slot = slot(index, id);
+                    if (slot > 0 && slot < copiedUpTo) {
+                        SLOT.setRelease(newIndex, slotPosition(id), out.append(readRaw(slot)));
+                    }
+                }
+            } finally {
+                swapLock.readLock().unlock();
+            }
+
+            // Phase 2: carry over what was appended meanwhile, then switch
+            writeLock.lock();
+            try {
+                if (closed) return;
+                checkWritable();
+                if (index.capacity() > newIndex.capacity()) {
+                    newIndex = newIndexChannel.map(FileChannel.MapMode.READ_WRITE, 0, index.capacity());
+                }
+                long superseded = 0;
+                for (long pos = copiedUpTo; pos < end; ) {
+                    ByteBuffer raw = readRaw(pos);
+                    pos += raw.remaining();
+                    int id = MovieRecordCodec.id(raw, 0);
+                    long previous = slot(newIndex, id);
+                    if (MovieRecordCodec.type(raw, 0) == MovieRecordCodec.PUT) {
+                        if (previous > 0) superseded += out.recordLength(previous);
+                        SLOT.setRelease(newIndex, slotPosition(id), out.append(raw));
+                    } else if (previous > 0) {
+                        superseded += out.recordLength(previous) + raw.remaining();
+                        SLOT.setRelease(newIndex, slotPosition(id), -out.append(raw));
+                    }
+                }
+                out.flush();
+                newSegment.force(true);
+                writeIndexHeader(newIndex, nextId, out.position(), size, superseded, false);
+                newIndex.force();
+                writeCurrent(newGen);
+
+                swapLock.writeLock().lock();
+                try {
+                    FileChannel oldSegment = segment;
+                    FileChannel oldIndexChannel = indexChannel;
+                    segment = newSegment;
+                    indexChannel = newIndexChannel;
+                    index = newIndex;
+                    end = out.position();
+                    garbage = superseded;
+                    checkpointEnd = end;
+                    generation = newGen;
+                    view = mapView(newSegment, end);
+                    switched = true;
+                    closeQuietly(oldSegment);
+                    closeQuietly(oldIndexChannel);
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+
+                syncLock.lock();
+                try {
+                    syncedGeneration = newGen;
+                    syncedEnd = end;
+                    syncDone.signalAll();
+                } finally {
+                    syncLock.unlock();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            deleteOtherGenerations(newGen);
+        } finally {
+            if (!switched) {
+                closeQuietly(newSegment);
+                closeQuietly(newIndexChannel);
+                Files.deleteIfExists(newSegmentPath);
+                Files.deleteIfExists(newIndexPath);
+            }
+        }
+    }
+
+    // ==================== STATUS ====================
+
+    /** @return the number of stored movies */
+    public int size() { return size; }
+
+    /** @return the segment length in bytes */
+    public long getSegmentBytes() { return end; }
+
+    /** @return the number of segment bytes holding superseded records */
+    public long getGarbageBytes() { return garbage; }
+
+    /** @return the current generation, incremented by every compaction */
+    public long getGeneration() { return generation; }
+
+    /** @return the number of {@code fsync} calls made for writes; lower than the number of writes under concurrency */
+    public long getSyncCount() {
+        syncLock.lock();
+        try {
+            return syncCount;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true} if an {@code fsync} failed and the store refuses writes until it is
+     *         reopened; writes reported as failed may then still have been stored
+     */
+    public boolean isFailed() { return failure != null; }
+
+    /** @return the sync error that made the store read-only, or {@code null} */
+    public IOException getFailure() { return failure; }
+
+    /** @return the store directory */
+    public Path getDirectory() { return dir; }
+
+    /**
+     * Stops the background maintenance, writes a final checkpoint and closes the files.
+     * The next open then needs no recovery. A {@link #isFailed() failed} store is closed
+     * without a checkpoint, so the next open recovers from what reached the disk.
+     *
+     * @throws IOException if the final checkpoint cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactLock.lock();
+        writeLock.lock();
+        swapLock.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+            view = null;
+            if (failure != null) return;
+            segment.force(true);
+            index.force();
+            writeIndexHeader(index, nextId, end, size, garbage, true);
+            index.force(0, INDEX_HEADER_SIZE);
+        } finally {
+            closeQuietly(segment);
+            closeQuietly(indexChannel);
+            swapLock.writeLock().unlock();
+            writeLock.unlock();
+            compactLock.unlock();
+        }
+    }
+
+    // ==================== OPENING AND RECOVERY ====================
+
+    /** Creates the empty files of a generation. */
+    private void createGeneration(long gen) throws IOException {
+        try (FileChannel seg = FileChannel.open(segmentPath(gen), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+             FileChannel idx = FileChannel.open(indexPath(gen), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putLong(0, SEGMENT_MAGIC);
+            while (header.hasRemaining()) seg.write(header);
+            seg.force(true);
+            MappedByteBuffer map = idx.map(FileChannel.MapMode.READ_WRITE, 0,
+                    INDEX_HEADER_SIZE + 8L * INITIAL_INDEX_CAPACITY);
+            writeIndexHeader(map, 1, SEGMENT_HEADER_SIZE, 0, 0, true);
+            map.force();
+        }
+    }
+
+    /** Opens the files of a generation, recovering the index if the store was not closed cleanly. */
+    private void openGeneration(long gen) throws IOException {
+        generation = gen;
+        segment = FileChannel.open(segmentPath(gen), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(indexPath(gen), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer magic = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            readFully(segment, magic, 0);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            if (magic.getLong(0) != SEGMENT_MAGIC || index.getInt(0) != INDEX_MAGIC) {
+                throw new IOException("Not a movie store: " + dir);
+            }
+
+            nextId = index.getInt(IDX_NEXT_ID);
+            checkpointEnd = index.getLong(IDX_CHECKPOINT);
+            size = index.getInt(IDX_SIZE);
+            garbage = index.getLong(IDX_GARBAGE);
+            end = segment.size();
+            boolean clean = index.getInt(IDX_CLEAN) == 1 && end == checkpointEnd;
+
+            index.putInt(IDX_CLEAN, 0);
+            index.force(0, INDEX_HEADER_SIZE);
+            if (!clean) recover();
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(segment);
+            closeQuietly(indexChannel);
+            throw e;
+        }
+        syncedGeneration = gen;
+        syncedEnd = end;
+        view = mapView(segment, end);
+    }
+
+    /**
+     * Replays the records after the last checkpoint, cuts off a damaged tail and rebuilds the
+     * index from the whole segment if it refers to records that did not survive.
+     */
+    private void recover() throws IOException {
+        long fileEnd = end;
+        long validEnd = replay(Math.max(SEGMENT_HEADER_SIZE, Math.min(checkpointEnd, fileEnd)));
+        if (validEnd < fileEnd) {
+            System.err.println("Discarding " + (fileEnd - validEnd) + " damaged bytes at the end of " + segmentPath(generation));
+            segment.truncate(validEnd);
+        }
+        end = validEnd;
+
+        if (!indexMatchesSegment()) {
+            System.err.println("Rebuilding the movie index of " + dir);
+            int lowestNextId = nextId;
+            for (int pos = INDEX_HEADER_SIZE; pos < index.capacity(); pos += 8) index.putLong(pos, 0);
+            nextId = 1;
+            replay(SEGMENT_HEADER_SIZE);
+            nextId = Math.max(nextId, lowestNextId);
+        }
+
+        // Recount, since the replay started from the counters of an older checkpoint
+        int count = 0;
+        long live = 0;
+        for (int id = 1; id < nextId; id++) {
+            long slot = slot(index, id);
+            if (slot > 0) {
+                count++;
+                live += recordLength(slot);
+            }
+        }
+        size = count;
+        garbage = end - SEGMENT_HEADER_SIZE - live;
+
+        segment.force(true);
+        index.force();
+        writeIndexHeader(index, nextId, end, size, garbage, false);
+        index.force(0, INDEX_HEADER_SIZE);
+        checkpointEnd = end;
+    }
+
+    /** @return {@code true} if no index slot points at or beyond the end of the segment */
+    private boolean indexMatchesSegment() {
+        for (int pos = INDEX_HEADER_SIZE; pos + 8 <= index.capacity(); pos += 8) {
+            if (Math.abs(index.getLong(pos)) >= end) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Applies every intact record from {@code from} to the index.
+     *
+     * @return the end of the last intact record
+     */
+    private long replay(long from) throws IOException {
+        long fileEnd = segment.size();
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long pos = from;
+        while (pos < fileEnd) {
+            buf.clear();
+            if (fileEnd - pos < buf.capacity()) buf.limit((int) (fileEnd - pos));
+            readFully(segment, buf, pos);
+            buf.flip();
+
+            int p = 0;
+            while (MovieRecordCodec.isIntact(buf, p)) {
+                int length = MovieRecordCodec.recordLength(buf, p);
+                index(MovieRecordCodec.type(buf, p), MovieRecordCodec.id(buf, p), pos + p, length);
+                p += length;
+            }
+            if (p == 0) break;  // damaged or incomplete record
+            pos += p;
+        }
+        return pos;
+    }
+
+    private void deleteOtherGenerations(long keep) {
+        try (var files = Files.newDirectoryStream(dir, "movies-*.{seg,idx}")) {
+            for (Path f : files) {
+                if (!f.equals(segmentPath(keep)) && !f.equals(indexPath(keep))) {
+                    try {
+                        Files.deleteIfExists(f);
+                    } catch (IOException e) {
+                        // Still mapped on some platforms; removed on a later open
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Atomically records {@code gen} as the live generation. */
+    private void writeCurrent(long gen) throws IOException {
+        Path tmp = dir.resolve("CURRENT.tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer text = ByteBuffer.wrap((gen + "\n").getBytes(StandardCharsets.UTF_8));
+            while (text.hasRemaining()) out.write(text);
+            out.force(true);
+        }
+        try {
+            Files.move(tmp, dir.resolve("CURRENT"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, dir.resolve("CURRENT"), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // ==================== LOW-LEVEL ACCESS ====================
+
+    private Path segmentPath(long gen) { return dir.resolve("movies-" + gen + ".seg"); }
+
+    private Path indexPath(long gen) { return dir.resolve("movies-" + gen + ".idx"); }
+
+    private static int slotPosition(int id) {
+        return INDEX_HEADER_SIZE + 8 * id;
+    }
+
+    /** @return the index slot of {@code id}; {@code 0} if it lies outside the index */
+    private static long slot(MappedByteBuffer idx, int id) {
+        if (id <= 0 || slotPosition(id) + 8L > idx.capacity()) return 0;
+        return (long) SLOT.getAcquire(idx, slotPosition(id));
+    }
+
+    private void setSlot(int id, long value) {
+        SLOT.setRelease(index, slotPosition(id), value);
+    }
+
+    /** Grows the index mapping so it has a slot for {@code id}. */
+    private void ensureCapacity(int id) throws IOException {
+        if (slotPosition(id) + 8L <= index.capacity()) return;
+        long capacity = (index.capacity() - INDEX_HEADER_SIZE) / 8;
+        long grown = Math.max(capacity * 2, id + 1L);
+        long bytes = INDEX_HEADER_SIZE + 8 * grown;
+        if (bytes > Integer.MAX_VALUE) throw new IOException("Movie ID " + id + " exceeds the index capacity.");
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+    }
+
+    private static void writeIndexHeader(MappedByteBuffer idx, int nextId, long checkpoint, int size,
+                                         long garbage, boolean clean) {
+        idx.putInt(0, INDEX_MAGIC);
+        idx.putInt(IDX_NEXT_ID, nextId);
+        idx.putLong(IDX_CHECKPOINT, checkpoint);
+        idx.putInt(IDX_SIZE, size);
+        idx.putInt(IDX_CLEAN, clean ? 1 : 0);
+        idx.putLong(IDX_GARBAGE, garbage);
+    }
+
+    /** @return a read-only mapping of the first {@code length} segment bytes, or {@code null} if too large */
+    private static ByteBuffer mapView(FileChannel channel, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) return null;
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+    }
+
+    /** Decodes the PUT record at {@code offset}. Caller holds the swap read lock. */
+    private Movie readMovie(long offset) throws IOException {
+        ByteBuffer v = view;
+        if (v != null && offset < v.capacity()) {
+            int length = MovieRecordCodec.recordLength(v, (int) offset);
+            if (length > 0 && offset + length <= v.capacity()) return MovieRecordCodec.decodePut(v, (int) offset);
+        }
+        return MovieRecordCodec.decodePut(readRaw(offset), 0);
+    }
+
+    /** Reads the complete record at {@code offset} into a buffer positioned at its start. Caller holds a lock. */
+    private ByteBuffer readRaw(long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(MovieRecordCodec.HEADER_SIZE);
+        readFully(segment, head, offset);
+        int length = MovieRecordCodec.recordLength(head.flip(), 0);
+        if (length < 0) throw new IOException("Damaged movie record at offset " + offset + ".");
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(segment, record, offset);
+        return record.flip();
+    }
+
+    private long recordLength(long offset) throws IOException {
+        return recordLength(segment, offset);
+    }
+
+    private static long recordLength(FileChannel channel, long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(MovieRecordCodec.HEADER_SIZE);
+        readFully(channel, head, offset);
+        return Math.max(0, MovieRecordCodec.recordLength(head.flip(), 0));
+    }
+
+    /** Fills {@code buf} from {@code position} on, stopping early only at the end of the file. */
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position());
+            if (n < 0) break;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+    /** Buffers sequential appends to a new segment during compaction. */
+    private static final class SegmentWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private long position;
+
+        SegmentWriter(FileChannel channel) {
+            this.channel = channel;
+            buffer.putLong(SEGMENT_MAGIC);
+        }
+
+        /**
+         * Appends a record.
+         *
+         * @param record the record, from its position to its limit
+         * @return the offset of the record in the new segment
+         */
+        long append(ByteBuffer record) throws IOException {
+            long offset = position + buffer.position();
+            if (record.remaining() > buffer.remaining()) flush();
+            if (record.remaining() > buffer.remaining()) {
+                while (record.hasRemaining()) position += channel.write(record, position);
+                return offset;
+            }
+            buffer.put(record.duplicate());
+            return offset;
+        }
+
+        /** @return the size of the record at {@code offset}, which may still be buffered */
+        long recordLength(long offset) throws IOException {
+            if (offset < position) return SegmentMovieRepository.recordLength(channel, offset);
+            return Math.max(0, MovieRecordCodec.recordLength(buffer, (int) (offset - position)));
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) position += channel.write(buffer, position);
+            buffer.clear();
+        }
+
+        /** @return the length of the new segment, including buffered bytes */
+        long position() { return position + buffer.position(); }
+    }
+}
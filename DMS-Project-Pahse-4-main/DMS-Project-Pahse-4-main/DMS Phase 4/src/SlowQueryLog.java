@@ -0,0 +1,532 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records statements that take longer than a threshold to a rotating local file.
+ * <p>
+ * Once installed with {@link ConnectionPool#setSlowQueryLog(SlowQueryLog)}, every prepared
+ * statement handed out by the pool is timed. A statement slower than the threshold is logged
+ * with its SQL, its bound parameters, the number of rows it returned or affected and its
+ * elapsed time. For queries the time runs until the result set is closed, so it includes
+ * fetching the rows; a streamed result therefore also counts the time its consumer takes.
+ * </p>
+ *
+ * <p><b>Hot Path:</b></p>
+ * Fast statements only pay for recording their parameters and two {@link System#nanoTime()}
+ * calls. Slow ones are handed to a background thread through a bounded queue; if the queue
+ * is full the entry is dropped and counted rather than blocking the caller. The background
+ * thread formats the entry, optionally runs {@code EXPLAIN} for it on its own pooled
+ * connection and appends it to the file.
+ *
+ * <p><b>Options:</b></p>
+ * <ul>
+ *     <li><b>Redaction:</b> with {@code redactParameters}, parameters are written as their type
+ *         only, e.g. {@code <String>}, so titles or other user data never reach the file.
+ *         Database errors are reduced to their SQLState and error code, because their messages
+ *         may quote row values. {@code EXPLAIN} still receives the real values.</li>
+ *     <li><b>Plans:</b> with {@code explain}, the output of {@code EXPLAIN} is appended below
+ *         each {@code SELECT}, {@code INSERT}, {@code UPDATE}, {@code DELETE} or {@code REPLACE}.</li>
+ *     <li><b>Rotation:</b> once the file reaches {@code maxFileBytes}, it is renamed to
+ *         {@code <file>.1}, older files move up by one and the oldest beyond {@code maxFiles}
+ *         is deleted.</li>
+ * </ul>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * SlowQueryLog slow = new SlowQueryLog(Path.of("slow-queries.log"), 200, true, true,
+ *         SlowQueryLog.DEFAULT_MAX_FILE_BYTES, SlowQueryLog.DEFAULT_MAX_FILES);
+ * pool.setSlowQueryLog(slow);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    /** Default time after which a statement is logged. */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 200;
+
+    /** Default size at which the log file is rotated. */
+    public static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+
+    /** Default number of log files kept, the current one included. */
+    public static final int DEFAULT_MAX_FILES = 5;
+
+    /** Most slow statements waiting to be written; further ones are dropped. */
+    public static final int QUEUE_CAPACITY = 1024;
+
+    private static final int MAX_PARAMETER_LENGTH = 200;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /** Marks the end of the queue on {@link #close()}. */
+    private static final Entry END = new Entry(null, null, 0, 0, null);
+
+    private final Path file;
+    private final boolean redactParameters;
+    private final boolean explain;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    private volatile long thresholdNanos;
+
+    /** Source of connections for {@code EXPLAIN}; set when installed on a pool. */
+    private volatile ConnectionPool pool;
+
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a log that shows parameters, does not run {@code EXPLAIN} and uses the default rotation.
+     *
+     * @param file            the log file; created if missing, appended to otherwise
+     * @param thresholdMillis statements taking longer than this are logged
+     */
+    public SlowQueryLog(Path file, long thresholdMillis) {
+        this(file, thresholdMillis, false, false, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_FILES);
+    }
+
+    /**
+     * Creates a fully configured log and starts its writer thread.
+     *
+     * @param file             the log file; created if missing, appended to otherwise
+     * @param thresholdMillis  statements taking longer than this are logged (at least 0)
+     * @param redactParameters {@code true} to write parameter types instead of values
+     * @param explain          {@code true} to append the {@code EXPLAIN} output of each logged statement
+     * @param maxFileBytes     size at which the file is rotated (at least 1)
+     * @param maxFiles         number of files kept, the current one included (at least 1)
+     * @throws IllegalArgumentException if an argument is out of range
+     */
+    public SlowQueryLog(Path file, long thresholdMillis, boolean redactParameters, boolean explain,
+                        long maxFileBytes, int maxFiles) {
+        if (maxFileBytes < 1) throw new IllegalArgumentException("Maximum file size must be at least 1 byte.");
+        if (maxFiles < 1) throw new IllegalArgumentException("At least one log file must be kept.");
+        this.file = file;
+        this.redactParameters = redactParameters;
+        this.explain = explain;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        setThresholdMillis(thresholdMillis);
+
+        this.writer = new Thread(this::writeLoop, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ==================== CONFIGURATION ====================
+
+    /** @return the time after which a statement is logged */
+    public long getThresholdMillis() { return TimeUnit.NANOSECONDS.toMillis(thresholdNanos); }
+
+    /**
+     * Changes the time after which a statement is logged; takes effect immediately.
+     *
+     * @param thresholdMillis the new threshold (at least 0)
+     * @throws IllegalArgumentException if {@code thresholdMillis} is negative
+     */
+    public void setThresholdMillis(long thresholdMillis) {
+        if (thresholdMillis < 0) throw new IllegalArgumentException("Threshold must not be negative.");
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    /** @return {@code true} if parameter values are replaced by their types */
+    public boolean isRedactingParameters() { return redactParameters; }
+
+    /** @return {@code true} if {@code EXPLAIN} output is appended to each entry */
+    public boolean isExplaining() { return explain; }
+
+    /** @return the current log file */
+    public Path getFile() { return file; }
+
+    /** @return the number of statements written to the log */
+    public long getLoggedCount() { return logged.sum(); }
+
+    /** @return the number of slow statements dropped because the queue was full */
+    public long getDroppedCount() { return dropped.sum(); }
+
+    /** Called by {@link ConnectionPool#setSlowQueryLog(SlowQueryLog)}. */
+    void attach(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Writes the statements still queued and stops the writer thread.
+     * Statements finishing afterwards are no longer logged.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(END);
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== CAPTURE ====================
+
+    /**
+     * Wraps a prepared statement so that its executions are timed and, if slow, logged.
+     *
+     * @param stmt the statement to wrap
+     * @param sql  the SQL it was prepared with
+     * @return a statement that behaves like {@code stmt}
+     */
+    PreparedStatement wrap(PreparedStatement stmt, String sql) {
+        if (isExplainStatement(sql)) return stmt;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                SlowQueryLog.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new TimedStatement(stmt, sql));
+    }
+
+    /** Queues a finished execution if it exceeded the threshold. */
+    private void finished(String sql, Object[] parameters, long rows, long elapsedNanos, String error) {
+        if (elapsedNanos < thresholdNanos || closed) return;
+        if (!queue.offer(new Entry(sql, parameters, rows, elapsedNanos, error))) dropped.increment();
+    }
+
+    /**
+     * Tracks the parameters of one prepared statement and times its executions.
+     * Like any statement, it is used by one thread at a time.
+     */
+    private final class TimedStatement implements InvocationHandler {
+        private final PreparedStatement target;
+        private final String sql;
+        private Object[] parameters = new Object[8];
+        private int parameterCount;
+        private Object[] firstBatchRow;
+        private int batchRows;
+
+        /** The result set of the last query until it is closed. */
+        private CountingResultSet openQuery;
+
+        TimedStatement(PreparedStatement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            int argCount = args == null ? 0 : args.length;
+
+            if (name.startsWith("set") && argCount >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(parameters, null);
+                parameterCount = 0;
+            } else if (name.equals("addBatch") && argCount == 0) {
+                if (batchRows++ == 0) firstBatchRow = currentParameters();
+            } else if (name.equals("clearBatch")) {
+                batchRows = 0;
+                firstBatchRow = null;
+            } else if (name.equals("close") || name.startsWith("execute")) {
+                if (openQuery != null) openQuery.finish();
+            }
+
+            if (!name.startsWith("execute") || argCount != 0) return call(method, args);
+
+            long start = System.nanoTime();
+            Object[] params = name.equals("executeBatch") || name.equals("executeLargeBatch")
+                    ? batchParameters()
+                    : currentParameters();
+            Object result;
+            try {
+                result = call(method, args);
+            } catch (SQLException e) {
+                finished(sql, params, 0, System.nanoTime() - start, describe(e));
+                throw e;
+            } finally {
+                if (name.contains("Batch")) {
+                    batchRows = 0;
+                    firstBatchRow = null;
+                }
+            }
+
+            if (result instanceof ResultSet) {
+                openQuery = new CountingResultSet((ResultSet) result, params, start);
+                return openQuery.proxy;
+            }
+            finished(sql, params, rowsOf(result), System.nanoTime() - start, null);
+            return result;
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void bind(int index, Object value) {
+            if (index < 1) return;
+            if (index > parameters.length) parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            parameters[index - 1] = value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+
+        private Object[] currentParameters() {
+            return Arrays.copyOf(parameters, parameterCount);
+        }
+
+        /** @return the parameters of the first batched row followed by the batch size, for the log */
+        private Object[] batchParameters() {
+            Object[] first = firstBatchRow != null ? firstBatchRow : new Object[0];
+            Object[] result = Arrays.copyOf(first, first.length + 1);
+            result[first.length] = new BatchSize(batchRows);
+            return result;
+        }
+
+        /** Counts the rows of a query result and reports the query when the result is closed. */
+        private final class CountingResultSet implements InvocationHandler {
+            final ResultSet rs;
+            final ResultSet proxy;
+            final Object[] params;
+            final long start;
+            long rows;
+            boolean finished;
+
+            CountingResultSet(ResultSet rs, Object[] params, long start) {
+                this.rs = rs;
+                this.params = params;
+                this.start = start;
+                this.proxy = (ResultSet) Proxy.newProxyInstance(
+                        SlowQueryLog.class.getClassLoader(), new Class<?>[]{ResultSet.class}, this);
+            }
+
+            @Override
+            public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("close")) finish();
+                Object result;
+                try {
+                    result = method.invoke(rs, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) rows++;
+                return result;
+            }
+
+            void finish() {
+                if (finished) return;
+                finished = true;
+                if (openQuery == this) openQuery = null;
+                finished(sql, params, rows, System.nanoTime() - start, null);
+            }
+        }
+    }
+
+    /** @return the rows affected according to an execute method's result, or {@code -1} if unknown */
+    private static long rowsOf(Object result) {
+        if (result instanceof Integer || result instanceof Long) return ((Number) result).longValue();
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int n : (int[]) result) total += Math.max(0, n);
+            return total;
+        }
+        if (result instanceof long[]) {
+            for (long n : (long[]) result) total += Math.max(0, n);
+            return total;
+        }
+        return -1;
+    }
+
+    // ==================== WRITING ====================
+
+    /** Drains the queue into the file until {@link #close()} is called. */
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+
+            boolean end = false;
+            StringBuilder text = new StringBuilder();
+            for (Entry entry : batch) {
+                if (entry == END) {
+                    end = true;
+                    break;
+                }
+                format(entry, text);
+            }
+            int written = batch.size() - (end ? 1 : 0);
+            batch.clear();
+
+            try {
+                if (text.length() > 0) append(text.toString());
+                logged.add(written);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+            if (end) return;
+        }
+    }
+
+    private void format(Entry entry, StringBuilder out) {
+        out.append("# ").append(entry.time.format(TIMESTAMP))
+                .append(String.format(Locale.ROOT, "  %.3f ms", entry.elapsedNanos / 1e6));
+        if (entry.rows >= 0) out.append("  rows ").append(entry.rows);
+        if (entry.error != null) out.append("  failed: ").append(entry.error);
+        out.append(System.lineSeparator());
+        out.append(entry.sql.trim()).append(';').append(System.lineSeparator());
+
+        if (entry.parameters.length > 0) {
+            out.append("  params:");
+            for (Object value : entry.parameters) out.append(' ').append(render(value));
+            out.append(System.lineSeparator());
+        }
+        if (explain && isExplainable(entry.sql)) {
+            out.append(explain(entry));
+        }
+        out.append(System.lineSeparator());
+    }
+
+    /** @return a parameter as it should appear in the log, shortened and redacted as configured */
+    private String render(Object value) {
+        if (value instanceof BatchSize) return "(batch of " + ((BatchSize) value).rows + " rows)";
+        if (value == null) return "NULL";
+        if (redactParameters) return "<" + value.getClass().getSimpleName() + ">";
+        String text = value.toString();
+        if (text.length() > MAX_PARAMETER_LENGTH) text = text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+        return value instanceof CharSequence ? "'" + text.replace("'", "''") + "'" : text;
+    }
+
+    /**
+     * @return the error text to log; only the SQLState and vendor code when redacting, since
+     *         driver messages may quote the values of a row, e.g. a duplicate key
+     */
+    private String describe(SQLException e) {
+        if (redactParameters) return "SQLState " + e.getSQLState() + ", error " + e.getErrorCode();
+        return e.getMessage();
+    }
+
+    /** Runs {@code EXPLAIN} for a logged statement and formats its rows, or the error it raised. */
+    private String explain(Entry entry) {
+        ConnectionPool source = pool;
+        if (source == null) return "";
+        StringBuilder out = new StringBuilder();
+        try (Connection conn = source.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + entry.sql)) {
+            int p = 1;
+            for (Object value : entry.parameters) {
+                if (!(value instanceof BatchSize)) stmt.setObject(p++, value);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    out.append("  plan:");
+                    for (int c = 1; c <= meta.getColumnCount(); c++) {
+                        String v = rs.getString(c);
+                        if (v != null) out.append(' ').append(meta.getColumnLabel(c)).append('=').append(v);
+                    }
+                    out.append(System.lineSeparator());
+                }
+            }
+        } catch (SQLException e) {
+            out.append("  plan unavailable: ").append(describe(e)).append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    /** Appends text to the log file, rotating it first if it has reached its maximum size. */
+    private void append(String text) throws IOException {
+        if (Files.exists(file) && Files.size(file) >= maxFileBytes) rotate();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(text);
+        }
+    }
+
+    /** Shifts {@code file.1 .. file.(maxFiles-2)} up by one and renames the current file to {@code file.1}. */
+    private void rotate() throws IOException {
+        if (maxFiles == 1) {
+            Files.delete(file);
+            return;
+        }
+        Files.deleteIfExists(rotated(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            Path older = rotated(i);
+            if (Files.exists(older)) Files.move(older, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotated(int generation) {
+        return file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    // ==================== HELPERS ====================
+
+    private static boolean isExplainStatement(String sql) {
+        return sql.regionMatches(true, 0, "EXPLAIN", 0, 7);
+    }
+
+    private static boolean isExplainable(String sql) {
+        String head = sql.stripLeading();
+        for (String verb : new String[]{"SELECT", "INSERT", "UPDATE", "DELETE", "REPLACE"}) {
+            if (head.regionMatches(true, 0, verb, 0, verb.length())) return true;
+        }
+        return false;
+    }
+
+    /** One slow execution waiting to be written. */
+    private static final class Entry {
+        final LocalDateTime time = LocalDateTime.now();
+        final String sql;
+        final Object[] parameters;
+        final long rows;
+        final long elapsedNanos;
+        final String error;
+
+        Entry(String sql, Object[] parameters, long rows, long elapsedNanos, String error) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+            this.error = error;
+        }
+    }
+
+    /** Stands in for the remaining rows of a batch in the logged parameters. */
+    private static final class BatchSize {
+        final int rows;
+
+        BatchSize(int rows) {
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * A point-in-time snapshot of the prepared-statement cache counters of a {@link ConnectionPool}.
+ * <p>
+ * A hit means a statement was reused without being prepared again; a miss means it had
+ * to be prepared on the connection. Counters are cumulative since the pool was created.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * StatementCacheStats stats = db.getStatementCacheStats();
+ * System.out.printf("hit ratio %.1f%%%n", stats.getHitRatio() * 100);
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class StatementCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int cachedStatements;
+
+    /**
+     * Creates a snapshot from the given counters.
+     *
+     * @param hits             statements served from the cache
+     * @param misses           statements that had to be prepared
+     * @param evictions        statements dropped to keep a cache within its bound
+     * @param cachedStatements statements currently held across all connections
+     */
+    public StatementCacheStats(long hits, long misses, long evictions, int cachedStatements) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.cachedStatements = cachedStatements;
+    }
+
+    /** @return the number of statements served from the cache */
+    public long getHits() { return hits; }
+
+    /** @return the number of statements that had to be prepared */
+    public long getMisses() { return misses; }
+
+    /** @return the number of statements evicted to keep a cache within its bound */
+    public long getEvictions() { return evictions; }
+
+    /** @return the number of statements currently cached across all connections */
+    public int getCachedStatements() { return cachedStatements; }
+
+    /** @return hits divided by all lookups, or {@code 0} if nothing has been prepared yet */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit ratio), %d evictions, %d cached",
+                hits, misses, getHitRatio() * 100, evictions, cachedStatements);
+    }
+}
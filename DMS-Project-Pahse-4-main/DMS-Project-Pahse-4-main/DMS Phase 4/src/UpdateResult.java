@@ -0,0 +1,76 @@
+/**
+ * The outcome of an optimistic update made with {@link MovieRepository#updateMovieIfCurrent(Movie)}.
+ * <p>
+ * The update succeeds only if the stored movie still has the version the edited copy was read
+ * with. Otherwise the result tells the caller whether someone else changed the movie in the
+ * meantime, and what it looks like now, or deleted it.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * UpdateResult result = db.updateMovieIfCurrent(edited);
+ * if (result != null && result.getStatus() == UpdateResult.Status.CONFLICT) {
+ *     Movie current = result.getMovie();  // show the newer values and let the user decide
+ * }
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public final class UpdateResult {
+
+    /** How an optimistic update ended. */
+    public enum Status {
+        /** The movie was stored; {@link #getMovie()} is the edited movie with its new version. */
+        UPDATED,
+        /** The movie was changed by someone else first; {@link #getMovie()} is its current state. */
+        CONFLICT,
+        /** No movie has the ID any more; {@link #getMovie()} is {@code null}. */
+        NOT_FOUND
+    }
+
+    private final Status status;
+    private final int id;
+    private final Movie movie;
+
+    private UpdateResult(Status status, int id, Movie movie) {
+        this.status = status;
+        this.id = id;
+        this.movie = movie;
+    }
+
+    /** @return a result for a stored movie */
+    static UpdateResult updated(Movie saved) {
+        return new UpdateResult(Status.UPDATED, saved.getId(), saved);
+    }
+
+    /** @return a result for a movie that was changed concurrently, now in the given state */
+    static UpdateResult conflict(Movie current) {
+        return new UpdateResult(Status.CONFLICT, current.getId(), current);
+    }
+
+    /** @return a result for a movie that no longer exists */
+    static UpdateResult notFound(int id) {
+        return new UpdateResult(Status.NOT_FOUND, id, null);
+    }
+
+    /** @return how the update ended */
+    public Status getStatus() { return status; }
+
+    /** @return {@code true} if the movie was stored */
+    public boolean isUpdated() { return status == Status.UPDATED; }
+
+    /** @return the ID of the movie the update was for */
+    public int getId() { return id; }
+
+    /**
+     * @return the stored movie after {@link Status#UPDATED}, the current movie after
+     *         {@link Status#CONFLICT}, or {@code null} after {@link Status#NOT_FOUND}
+     */
+    public Movie getMovie() { return movie; }
+
+    @Override
+    public String toString() {
+        return "Movie " + id + ": " + status + (movie != null ? " (version " + movie.getVersion() + ")" : "");
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+/**
+ * Summarizes the outcome of a bulk upsert performed by
+ * {@link MovieDatabaseManager#upsertMovies(java.util.Collection)}.
+ * <p>
+ * Every committed row is counted exactly once: as inserted (its natural key was new),
+ * updated (an existing row had different values) or unchanged (an existing row already
+ * held the same values). Also records the wall-clock time each committed chunk took.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * UpsertResult result = db.upsertMovies(catalog);
+ * System.out.println(result);  // e.g. "120 inserted, 37 updated, 9843 unchanged in 10 chunks (412 ms)"
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class UpsertResult {
+
+    private final int inserted;
+    private final int updated;
+    private final int unchanged;
+    private final long[] chunkNanos;
+
+    /**
+     * Creates a result from the collected counters and chunk timings.
+     *
+     * @param inserted   rows inserted because their natural key did not exist
+     * @param updated    existing rows whose values changed
+     * @param unchanged  existing rows that already held the given values
+     * @param chunkNanos the elapsed time of each committed chunk in nanoseconds
+     */
+    public UpsertResult(int inserted, int updated, int unchanged, long[] chunkNanos) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.chunkNanos = chunkNanos;
+    }
+
+    /** @return the number of rows inserted because their natural key did not exist */
+    public int getInsertedCount() { return inserted; }
+
+    /** @return the number of existing rows whose values changed */
+    public int getUpdatedCount() { return updated; }
+
+    /** @return the number of existing rows that already held the given values */
+    public int getUnchangedCount() { return unchanged; }
+
+    /** @return the number of rows in all committed chunks */
+    public int getTotalCount() { return inserted + updated + unchanged; }
+
+    /** @return the elapsed time of each committed chunk in nanoseconds */
+    public long[] getChunkNanos() { return chunkNanos.clone(); }
+
+    /** @return the number of chunks that were committed */
+    public int getChunkCount() { return chunkNanos.length; }
+
+    /** @return the total time spent in committed chunks, in milliseconds */
+    public long getTotalMillis() { return Arrays.stream(chunkNanos).sum() / 1_000_000; }
+
+    @Override
+    public String toString() {
+        return String.format("%d inserted, %d updated, %d unchanged in %d chunks (%d ms)",
+                inserted, updated, unchanged, getChunkCount(), getTotalMillis());
+    }
+}
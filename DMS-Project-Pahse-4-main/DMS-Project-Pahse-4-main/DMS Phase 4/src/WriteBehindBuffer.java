@@ -0,0 +1,445 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Buffers {@link MovieDatabaseManager#updateMovie(Movie)} calls in memory and writes them
+ * to the database later in batches.
+ * <p>
+ * Pending updates are coalesced per movie ID: if the same movie is edited ten times before
+ * the next flush, only its latest state is written. A background thread flushes all pending
+ * updates as one batched transaction every flush interval, or sooner once the buffer is full.
+ * </p>
+ *
+ * <p><b>Bounds and Durability:</b></p>
+ * <ul>
+ *     <li>At most {@code maxPending} movies are unflushed at any time, counting those of a flush
+ *         in progress. A caller that would exceed the bound waits until a flush makes room.</li>
+ *     <li>A flush that fails with a transient error, such as a lost connection, keeps its updates
+ *         (unless superseded meanwhile) and retries on the next tick.</li>
+ *     <li>A flush that fails for any other reason is repeated one row at a time. Rows the database
+ *         rejects on their own, e.g. for a constraint violation, are set aside rather than retried,
+ *         so one bad row cannot block the buffer; see {@link #getRejectedUpdates()}.</li>
+ *     <li>{@link #close()} flushes synchronously, and a JVM shutdown hook does the same if the
+ *         application exits without closing the buffer.</li>
+ * </ul>
+ *
+ * <p><b>Visibility:</b></p>
+ * {@link MovieDatabaseManager#getMovieById(int)} sees buffered updates immediately; queries
+ * returning many rows see them after the next flush.
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * db.enableWriteBehind(500, 10_000);
+ * for (Movie m : edits) db.updateMovie(m);   // returns immediately
+ * db.disableWriteBehind();                   // flushes what is left
+ * }</pre>
+ *
+ * @author YourName
+ * @version 1.0
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+
+    /** Default time between background flushes. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1_000;
+
+    /** Default maximum number of unflushed movies. */
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+
+    private final MovieDatabaseManager db;
+    private final int maxPending;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+
+    /** Serializes flushes so two batches for the same movie never race. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /** Latest unflushed state per movie ID, oldest first. Guarded by {@link #lock}. */
+    private LinkedHashMap<Integer, Movie> pending = new LinkedHashMap<>();
+
+    /** Movies of the flush in progress, still visible to readers. Guarded by {@link #lock}. */
+    private Map<Integer, Movie> inFlight = Map.of();
+
+    private boolean flushRequested;
+    private boolean closed;
+    private long coalesced;
+    private long flushedRows;
+    private long flushes;
+    private long failedFlushes;
+
+    /** Updates the database rejected, oldest first, at most {@link #maxPending}. Guarded by {@link #lock}. */
+    private final LinkedHashMap<Integer, Movie> rejected = new LinkedHashMap<>();
+    private long rejectedCount;
+    private SQLException lastRejection;
+
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+
+    /**
+     * Creates a buffer and starts its background flusher.
+     *
+     * @param db                  the manager whose batched update writes the buffered movies
+     * @param flushIntervalMillis time between background flushes (at least 1)
+     * @param maxPending          maximum number of unflushed movies (at least 1)
+     * @throws IllegalArgumentException if either argument is less than 1
+     */
+    public WriteBehindBuffer(MovieDatabaseManager db, long flushIntervalMillis, int maxPending) {
+        if (flushIntervalMillis < 1) throw new IllegalArgumentException("Flush interval must be at least 1 ms.");
+        if (maxPending < 1) throw new IllegalArgumentException("Buffer size must be at least 1.");
+        this.db = db;
+        this.maxPending = maxPending;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "movie-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+        this.shutdownHook = new Thread(this::flushQuietly, "movie-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // ==================== BUFFERING ====================
+
+    /**
+     * Buffers the new state of a movie, replacing any unflushed state of the same movie.
+     * Waits while the buffer is full.
+     * <p>
+     * The flush increments the row version once per buffered movie, however many updates were
+     * coalesced into it. The version on {@code m} and on the buffered copy is set to that
+     * resulting version right away.
+     * </p>
+     *
+     * @param m the movie containing updated information; its version is advanced
+     * @throws IllegalStateException if the buffer is closed or the caller is interrupted while waiting
+     */
+    public void submit(Movie m) {
+        Integer id = m.getId();
+        Movie copy = new Movie(m);
+        lock.lock();
+        try {
+            while (!closed && !pending.containsKey(id) && pending.size() + inFlight.size() >= maxPending) {
+                requestFlush();
+                notFull.await();
+            }
+            if (closed) throw new IllegalStateException("Write-behind buffer is closed.");
+            Movie previous = pending.put(id, copy);
+            if (previous != null) coalesced++;
+            copy.setVersion(previous != null ? previous.getVersion() : m.getVersion() + 1);
+            m.setVersion(copy.getVersion());
+            if (pending.size() + inFlight.size() >= maxPending) requestFlush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind buffer.", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the unflushed state of a movie, if any.
+     *
+     * @param id the movie ID
+     * @return a copy of the buffered movie, or {@code null} if none is pending
+     */
+    public Movie lookup(int id) {
+        lock.lock();
+        try {
+            Movie m = pending.get(id);
+            if (m == null) m = inFlight.get(id);
+            return m == null ? null : new Movie(m);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops unflushed updates of movies that are about to be deleted or written directly,
+     * so they cannot overwrite the new state later. Waits for a flush in progress first.
+     *
+     * @param ids the IDs of the movies
+     */
+    public void discard(int... ids) {
+        flushLock.lock();
+        lock.lock();
+        try {
+            for (int id : ids) pending.remove(id);
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the unflushed updates that match a condition, like {@link #discard(int...)}.
+     *
+     * @param filter selects the buffered movies to drop
+     */
+    public void discard(Predicate<Movie> filter) {
+        flushLock.lock();
+        lock.lock();
+        try {
+            pending.values().removeIf(filter);
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+            flushLock.unlock();
+        }
+    }
+
+    // ==================== FLUSHING ====================
+
+    /** Schedules an immediate background flush unless one is already queued. Caller holds {@link #lock}. */
+    private void requestFlush() {
+        if (flushRequested) return;
+        flushRequested = true;
+        flusher.execute(this::flushQuietly);
+    }
+
+    /**
+     * Writes all pending updates in one batched transaction and waits for it to finish.
+     * <p>
+     * If the batch fails with an error that is not transient, it is written again one row at a
+     * time, and only the rows that fail on their own are set aside.
+     * </p>
+     *
+     * @throws SQLException if the batch failed transiently, in which case its updates stay
+     *                      buffered, or if rows were rejected and set aside
+     */
+    public void flush() throws SQLException {
+        flushLock.lock();
+        try {
+            ArrayList<Movie> batch;
+            lock.lock();
+            try {
+                flushRequested = false;
+                if (pending.isEmpty()) return;
+                inFlight = pending;
+                pending = new LinkedHashMap<>();
+                batch = new ArrayList<>(inFlight.values());
+            } finally {
+                lock.unlock();
+            }
+
+            // Anything thrown unexpectedly leaves the whole batch to be retried
+            List<Movie> retry = batch;
+            LinkedHashMap<Integer, Movie> parked = new LinkedHashMap<>();
+            SQLException failure = null;
+            SQLException rejection = null;
+            try {
+                try {
+                    db.writeUpdates(batch);
+                    retry = List.of();
+                } catch (SQLException e) {
+                    failure = e;
+                    if (!RetryPolicy.isRetryable(e)) {
+                        retry = List.of();
+                        for (int i = 0; i < batch.size(); i++) {
+                            Movie m = batch.get(i);
+                            try {
+                                db.writeUpdates(List.of(m));
+                            } catch (SQLException rowError) {
+                                if (RetryPolicy.isRetryable(rowError)) {
+                                    retry = batch.subList(i, batch.size());
+                                    failure = rowError;
+                                    break;
+                                }
+                                parked.put(m.getId(), m);
+                                rejection = rowError;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.lock();
+                try {
+                    if (failure == null) flushes++;
+                    else failedFlushes++;
+                    flushedRows += batch.size() - retry.size() - parked.size();
+                    for (Movie m : retry) pending.putIfAbsent(m.getId(), m);
+                    for (Movie m : parked.values()) {
+                        rejected.remove(m.getId());
+                        rejected.put(m.getId(), m);
+                        if (rejected.size() > maxPending) rejected.remove(rejected.keySet().iterator().next());
+                    }
+                    rejectedCount += parked.size();
+                    if (rejection != null) lastRejection = rejection;
+                    inFlight = Map.of();
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            if (!retry.isEmpty()) throw failure;
+            if (rejection != null) {
+                throw new SQLException(parked.size() + " buffered update(s) were rejected and set aside: "
+                        + rejection.getMessage(), rejection.getSQLState(), rejection.getErrorCode(), rejection);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Flushes and reports a failure instead of throwing; used by the background thread. */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // ==================== STATUS ====================
+
+    /** @return the number of movies not yet written, including a flush in progress */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size() + inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of updates replaced by a later update of the same movie before being written */
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of movie rows written by successful flushes */
+    public long getFlushedCount() {
+        lock.lock();
+        try {
+            return flushedRows;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of flushes that wrote a batch successfully */
+    public long getFlushCount() {
+        lock.lock();
+        try {
+            return flushes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of flushes whose batch failed, whether retried later or written row by row */
+    public long getFailedFlushCount() {
+        lock.lock();
+        try {
+            return failedFlushes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of updates the database rejected since the buffer was created */
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejectedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the updates the database rejected, so they can be corrected and written again.
+     * Only the latest rejected state per movie is kept, and only the most recent
+     * {@link #getMaxPending()} movies.
+     *
+     * @return copies of the rejected movies, oldest first
+     */
+    public List<Movie> getRejectedUpdates() {
+        lock.lock();
+        try {
+            List<Movie> copies = new ArrayList<>(rejected.size());
+            for (Movie m : rejected.values()) copies.add(new Movie(m));
+            return copies;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the rejected updates, e.g. after they have been corrected and written again.
+     *
+     * @return copies of the rejected movies that were forgotten, oldest first
+     */
+    public List<Movie> clearRejectedUpdates() {
+        lock.lock();
+        try {
+            List<Movie> copies = getRejectedUpdates();
+            rejected.clear();
+            return copies;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the error of the most recently rejected update, or {@code null} if none was rejected */
+    public SQLException getLastRejection() {
+        lock.lock();
+        try {
+            return lastRejection;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the maximum number of unflushed movies */
+    public int getMaxPending() { return maxPending; }
+
+    /**
+     * Stops the background flusher and writes everything still pending.
+     * Further calls to {@link #submit(Movie)} fail.
+     *
+     * @throws IllegalStateException if the final flush fails; the updates are then lost
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // Already shutting down; the hook flushes as well
+        }
+        try {
+            flush();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Final write-behind flush failed.", e);
+        }
+    }
+}